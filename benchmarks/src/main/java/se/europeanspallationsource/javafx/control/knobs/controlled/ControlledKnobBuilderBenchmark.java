@@ -0,0 +1,94 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2017 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.javafx.control.knobs.controlled;
+
+
+import java.util.concurrent.TimeUnit;
+import javafx.embed.swing.JFXPanel;
+import javafx.scene.paint.Color;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Benchmark of {@link ControlledKnobBuilder#build()} and of the bulk creation
+ * of the knobs of an operator screen.
+ *
+ * @author Claudio Rosati, European Spallation Source ERIC
+ * @version 1.0.0 18 Oct 2026
+ */
+@BenchmarkMode( { Mode.Throughput, Mode.SampleTime } )
+@Fork( 1 )
+@Measurement( iterations = 5, time = 2 )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@State( Scope.Benchmark )
+@Warmup( iterations = 3, time = 2 )
+public class ControlledKnobBuilderBenchmark {
+
+    private static final int SCREEN_KNOBS = 320;
+
+    private ControlledKnobBuilder builder;
+    private ControlledKnob template;
+
+    @Setup( Level.Trial )
+    public void setup() {
+
+        //  Initializes the JavaFX toolkit.
+        new JFXPanel();
+
+        builder = ControlledKnobBuilder.create()
+            .minValue(-100)
+            .maxValue(100)
+            .currentValue(12)
+            .targetValue(24)
+            .channel(5)
+            .coarseIncrement(2)
+            .fineIncrement(0.1)
+            .decimals(2)
+            .unit("mA")
+            .tagColor(Color.ORANGE)
+            .prefSize(160, 160);
+
+        template = builder.build();
+
+    }
+
+    @Benchmark
+    public ControlledKnob build() {
+        return builder.build();
+    }
+
+    @Benchmark
+    public ControlledKnob[] buildAll() {
+        return builder.buildAll(SCREEN_KNOBS, ( b, i ) -> b.channel(i));
+    }
+
+    @Benchmark
+    public ControlledKnob buildFromTemplate() {
+        return ControlledKnobBuilder.from(template).build();
+    }
+
+}
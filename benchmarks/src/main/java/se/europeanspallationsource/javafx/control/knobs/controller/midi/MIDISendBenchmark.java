@@ -0,0 +1,186 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2017 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.javafx.control.knobs.controller.midi;
+
+
+import java.util.concurrent.TimeUnit;
+import javafx.scene.paint.Color;
+import javax.sound.midi.InvalidMidiDataException;
+import javax.sound.midi.MidiMessage;
+import javax.sound.midi.ShortMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import se.europeanspallationsource.javafx.control.knobs.controller.Controllable;
+
+
+/**
+ * Benchmarks of the {@link AbstractMIDIController} send variants. The
+ * {@code send*} ones are measured on the calling thread, while
+ * {@link #sendAndDrain()} waits for the writer thread to transmit the sent
+ * messages to the device, so that its queue draining and transmit path is
+ * measured too. Run with {@code -prof gc} to check that sending control
+ * changes allocates nothing.
+ *
+ * @author Claudio Rosati, European Spallation Source ERIC
+ * @version 1.0.0 18 Oct 2026
+ */
+@BenchmarkMode( { Mode.Throughput, Mode.SampleTime } )
+@Fork( 1 )
+@Measurement( iterations = 5, time = 2 )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@State( Scope.Benchmark )
+@Warmup( iterations = 3, time = 2 )
+public class MIDISendBenchmark {
+
+    /**
+     * The number of messages sent, on distinct slots, by each
+     * {@link #sendAndDrain()} invocation.
+     */
+    private static final int DRAIN_BATCH = 16;
+
+    private BenchmarkController controller;
+    private LoopbackMIDIDevice device;
+    private MidiMessage message;
+    private int value = 0;
+
+    @Setup( Level.Trial )
+    public void setup() throws InvalidMidiDataException {
+
+        device = new LoopbackMIDIDevice("Benchmark");
+        controller = new BenchmarkController(device);
+        message = new ShortMessage(ShortMessage.CONTROL_CHANGE, 0, 1, 64);
+
+        //  Measure the writer, not the pacing.
+        controller.setRateLimit(0);
+
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown() {
+        controller.dispose();
+    }
+
+    @Benchmark
+    public boolean sendCommandChannelData() {
+        return controller.send(ShortMessage.CONTROL_CHANGE, 0, 1, ( value++ ) & 0x7F, -1);
+    }
+
+    @Benchmark
+    public long sendAndDrain() {
+
+        long expected = device.getReceivedMessages() + DRAIN_BATCH;
+        int data2 = ( value++ ) & 0x7F;
+
+        for ( int data1 = 0; data1 < DRAIN_BATCH; data1++ ) {
+            controller.send(ShortMessage.CONTROL_CHANGE, 0, data1, data2, -1);
+        }
+
+        long received;
+
+        while ( ( received = device.getReceivedMessages() ) < expected ) {
+            Thread.yield();
+        }
+
+        return received;
+
+    }
+
+    @Benchmark
+    public boolean sendMessage() {
+        return controller.send(message, -1);
+    }
+
+    @Benchmark
+    public boolean sendStatusData() {
+        return controller.send(ShortMessage.CONTROL_CHANGE | 1, 2, ( value++ ) & 0x7F, -1);
+    }
+
+    /**
+     * A controller used to call the send methods. It has no controllables, but
+     * it still accepts them, wrapping them into a {@link BenchmarkWrapper}.
+     */
+    private static class BenchmarkController extends AbstractMIDIController {
+
+        BenchmarkController( LoopbackMIDIDevice device ) {
+            super("Benchmark", device, device);
+        }
+
+        @Override
+        protected AbstractControllableWrapper createWrapper( Controllable controllable ) {
+            return new BenchmarkWrapper(controllable, this);
+        }
+
+        @Override
+        protected void midiMessageReceived( MidiMessage message, long timeStamp ) {
+        }
+
+        /**
+         * A wrapper ignoring all the changes of its controllable.
+         */
+        private static class BenchmarkWrapper extends AbstractControllableWrapper {
+
+            BenchmarkWrapper( Controllable controllable, BenchmarkController controller ) {
+                super(controllable, controller);
+            }
+
+            @Override
+            protected void channelChanged( int oldValue, int newValue ) {
+            }
+
+            @Override
+            protected void currentValueChanged( double oldValue, double newValue ) {
+            }
+
+            @Override
+            protected void disabledChanged( boolean oldValue, boolean newValue ) {
+            }
+
+            @Override
+            protected void maxValueChanged( double oldValue, double newValue ) {
+            }
+
+            @Override
+            protected void minValueChanged( double oldValue, double newValue ) {
+            }
+
+            @Override
+            protected void operatingModeChanged( Controllable.OperatingMode oldValue, Controllable.OperatingMode newValue ) {
+            }
+
+            @Override
+            protected void tagColorChanged( Color oldValue, Color newValue ) {
+            }
+
+            @Override
+            protected void targetValueChanged( double oldValue, double newValue ) {
+            }
+
+        }
+
+    }
+
+}
@@ -0,0 +1,167 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2017 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.javafx.control.knobs.controller.midi.djtechtools;
+
+
+import java.util.concurrent.TimeUnit;
+import javafx.embed.swing.JFXPanel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import se.europeanspallationsource.javafx.control.knobs.controlled.ControlledKnob;
+
+
+/**
+ * Benchmarks of the controllable registry of a
+ * {@link MidiFighterTwisterController} under concurrent mutation: knobs are
+ * added and removed, and all of them removed and added again, while the
+ * wrappers are iterated to resynchronize the device and encoders are turned.
+ *
+ * @author Claudio Rosati, European Spallation Source ERIC
+ * @version 1.0.0 18 Oct 2026
+ */
+@BenchmarkMode( { Mode.Throughput, Mode.SampleTime } )
+@Fork( 1 )
+@Measurement( iterations = 5, time = 2 )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@State( Scope.Group )
+@Warmup( iterations = 3, time = 2 )
+public class ControllerRegistryBenchmark {
+
+    @Param( { "16", "64" } )
+    public int knobs;
+
+    private MidiFighterTwisterController controller;
+    private ControlledKnob[] registered;
+    private int turn = 1;
+    private VirtualMidiFighterTwister twister;
+
+    @Setup( Level.Trial )
+    public void setup() {
+
+        //  Initializes the JavaFX toolkit.
+        new JFXPanel();
+
+        twister = new VirtualMidiFighterTwister();
+        controller = new MidiFighterTwisterController(twister);
+        registered = new ControlledKnob[knobs];
+
+        for ( int i = 0; i < knobs; i++ ) {
+
+            registered[i] = new ControlledKnob();
+
+            registered[i].setChannel(i % 64);
+            controller.add(registered[i]);
+
+        }
+
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown() {
+        controller.dispose();
+    }
+
+    @Benchmark
+    @Group( "churn" )
+    @GroupThreads( 2 )
+    public void churnAddRemove( ThreadKnob state ) {
+        controller.add(state.knob);
+        controller.remove(state.knob);
+    }
+
+    @Benchmark
+    @Group( "churn" )
+    @GroupThreads( 1 )
+    public void churnDispatch() {
+        //  Alternate direction to stay away from the range limits.
+        twister.turn(0, turn);
+        turn = -turn;
+    }
+
+    @Benchmark
+    @Group( "churn" )
+    @GroupThreads( 1 )
+    public void churnRemoveAll() {
+
+        //  Clears the registry, then fills it again, so that the controller
+        //  stays usable and populated for all the other benchmarks.
+        for ( ControlledKnob knob : registered ) {
+            controller.remove(knob);
+        }
+
+        for ( ControlledKnob knob : registered ) {
+            controller.add(knob);
+        }
+
+    }
+
+    @Benchmark
+    @Group( "churn" )
+    @GroupThreads( 1 )
+    public void churnResync() {
+        controller.deviceReconnected();
+    }
+
+    @Benchmark
+    @Group( "resync" )
+    @GroupThreads( 2 )
+    public void resyncAddRemove( ThreadKnob state ) {
+        controller.add(state.knob);
+        controller.remove(state.knob);
+    }
+
+    @Benchmark
+    @Group( "resync" )
+    @GroupThreads( 2 )
+    public void resyncIterate() {
+        controller.deviceReconnected();
+    }
+
+    /**
+     * The knob added and removed by a single thread.
+     */
+    @State( Scope.Thread )
+    public static class ThreadKnob {
+
+        ControlledKnob knob;
+
+        @Setup( Level.Trial )
+        public void setup() {
+
+            new JFXPanel();
+
+            knob = new ControlledKnob();
+            knob.setChannel(63);
+
+        }
+
+    }
+
+}
@@ -0,0 +1,124 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2017 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.javafx.control.knobs.controller.midi.djtechtools;
+
+
+import java.util.concurrent.TimeUnit;
+import javafx.embed.swing.JFXPanel;
+import javafx.scene.paint.Color;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import se.europeanspallationsource.javafx.control.knobs.controlled.ControlledKnob;
+
+
+/**
+ * Benchmarks of the {@link MidiFighterTwisterController} per-detent paths,
+ * driven by a {@link VirtualMidiFighterTwister}. Only the public API is used:
+ * the value and color paths are exercised changing the properties of an
+ * attached knob.
+ *
+ * @author Claudio Rosati, European Spallation Source ERIC
+ * @version 1.0.0 18 Oct 2026
+ */
+@BenchmarkMode( { Mode.Throughput, Mode.SampleTime } )
+@Fork( 1 )
+@Measurement( iterations = 5, time = 2 )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@State( Scope.Benchmark )
+@Warmup( iterations = 3, time = 2 )
+public class MidiFighterTwisterBenchmark {
+
+    private static final Color[] COLORS = { Color.RED, Color.GREEN, Color.BLUE, Color.YELLOW };
+
+    @Param( { "1", "16", "64" } )
+    public int knobs;
+
+    private int colorIndex = 0;
+    private MidiFighterTwisterController controller;
+    private ControlledKnob extraKnob;
+    private ControlledKnob knob;
+    private int turn = 1;
+    private VirtualMidiFighterTwister twister;
+
+    @Setup( Level.Trial )
+    public void setup() {
+
+        //  Initializes the JavaFX toolkit.
+        new JFXPanel();
+
+        twister = new VirtualMidiFighterTwister();
+        controller = new MidiFighterTwisterController(twister);
+
+        for ( int i = 0; i < knobs; i++ ) {
+
+            ControlledKnob knob = new ControlledKnob();
+
+            knob.setChannel(i);
+            controller.add(knob);
+
+        }
+
+        extraKnob = new ControlledKnob();
+        extraKnob.setChannel(knobs - 1);
+
+        knob = new ControlledKnob();
+        knob.setChannel(0);
+        controller.add(knob);
+
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown() {
+        controller.remove(knob);
+        controller.dispose();
+    }
+
+    @Benchmark
+    public void addRemove() {
+        controller.add(extraKnob);
+        controller.remove(extraKnob);
+    }
+
+    @Benchmark
+    public void currentValueChanged() {
+        knob.setCurrentValue(( turn = -turn ) > 0 ? 37.5 : 62.5);
+    }
+
+    @Benchmark
+    public void dispatch() {
+        //  Alternate direction to stay away from the range limits.
+        twister.turn(knobs - 1, turn);
+        turn = -turn;
+    }
+
+    @Benchmark
+    public void tagColorChanged() {
+        knob.setTagColor(COLORS[( colorIndex++ ) & 3]);
+    }
+
+}
@@ -0,0 +1,386 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2017 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.javafx.control.knobs.controlled;
+
+
+import javafx.animation.AnimationTimer;
+import javafx.beans.InvalidationListener;
+import javafx.beans.Observable;
+import javafx.event.EventHandler;
+import javafx.geometry.Insets;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.effect.BlendMode;
+import javafx.scene.image.Image;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.ArcType;
+import javafx.scene.shape.StrokeLineCap;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+
+
+/**
+ * Draws a {@link ControlledKnob} on a single {@link Canvas}, replacing the
+ * knob's own nodes when its {@link RenderingMode} is
+ * {@link RenderingMode#CANVAS}.
+ * <P>
+ * The drawing is invalidated by any change of the properties shown, and
+ * redrawn at the next pulse, so that many changes occurring in the same
+ * pulse cause a single redraw.
+ * <P>
+ * The canvas also handles the mouse interaction: pressing or dragging the
+ * primary button sets the target value pointed on the bar, and releasing it
+ * fires the target value set; scrolling changes the target value by the
+ * coarse increment (or the fine one when the knob is selected), firing the
+ * target value set at each step. Must be used on the JavaFX thread only.
+ *
+ * @author Claudio Rosati, European Spallation Source ERIC
+ * @version 1.0.0 18 Oct 2026
+ */
+@SuppressWarnings( "ClassWithoutLogger" )
+final class CanvasKnobRenderer {
+
+    private static final double ANGLE_RANGE = 300.0;
+    private static final double DISABLED_ALPHA = 0.4;
+    private static final double START_ANGLE = 240.0;
+
+    private final Canvas canvas = new Canvas();
+    private boolean dirty = false;
+    private String format = null;
+    private int formatDecimals = -1;
+    private String formattedText = null;
+    private double formattedValue = Double.NaN;
+    private final ControlledKnob knob;
+    private final InvalidationListener invalidationListener = observable -> invalidate();
+    private final EventHandler<MouseEvent> mouseHandler = this::mouseEvent;
+    private final Observable[] observed;
+    private final AnimationTimer pulse = new AnimationTimer() {
+        @Override
+        public void handle( long now ) {
+
+            stop();
+
+            dirty = false;
+
+            draw();
+
+        }
+    };
+    private final EventHandler<ScrollEvent> scrollHandler = this::scrollEvent;
+
+    CanvasKnobRenderer( ControlledKnob knob ) {
+
+        this.knob = knob;
+        this.observed = new Observable[] {
+            knob.backgroundColorProperty(),
+            knob.colorProperty(),
+            knob.currentValueColorProperty(),
+            knob.currentValueProperty(),
+            knob.decimalsProperty(),
+            knob.disabledProperty(),
+            knob.heightProperty(),
+            knob.indicatorColorProperty(),
+            knob.insetsProperty(),
+            knob.maxValueProperty(),
+            knob.minValueProperty(),
+            knob.operatingModeProperty(),
+            knob.selectedProperty(),
+            knob.selectionColorProperty(),
+            knob.tagColorProperty(),
+            knob.tagVisibleProperty(),
+            knob.targetValueProperty(),
+            knob.textColorProperty(),
+            knob.unitProperty(),
+            knob.widthProperty()
+        };
+
+        for ( Observable o : observed ) {
+            o.addListener(invalidationListener);
+        }
+
+        canvas.setManaged(false);
+        canvas.addEventHandler(MouseEvent.MOUSE_PRESSED, mouseHandler);
+        canvas.addEventHandler(MouseEvent.MOUSE_DRAGGED, mouseHandler);
+        canvas.addEventHandler(MouseEvent.MOUSE_RELEASED, mouseHandler);
+        canvas.addEventHandler(ScrollEvent.SCROLL, scrollHandler);
+
+        invalidate();
+
+    }
+
+    /**
+     * Stop listening to the knob's properties and to the mouse.
+     */
+    void dispose() {
+
+        for ( Observable o : observed ) {
+            o.removeListener(invalidationListener);
+        }
+
+        canvas.removeEventHandler(MouseEvent.MOUSE_PRESSED, mouseHandler);
+        canvas.removeEventHandler(MouseEvent.MOUSE_DRAGGED, mouseHandler);
+        canvas.removeEventHandler(MouseEvent.MOUSE_RELEASED, mouseHandler);
+        canvas.removeEventHandler(ScrollEvent.SCROLL, scrollHandler);
+
+        pulse.stop();
+
+        dirty = false;
+
+    }
+
+    Canvas getCanvas() {
+        return canvas;
+    }
+
+    /**
+     * Mark the drawing as dirty, to be redrawn at the next pulse.
+     */
+    void invalidate() {
+        if ( !dirty ) {
+            dirty = true;
+            pulse.start();
+        }
+    }
+
+    /**
+     * @param value The value to be converted.
+     * @param min   The minimum value.
+     * @param range The value range, greater than {@code 0}.
+     * @return The arc angle, in degrees, corresponding to the given value.
+     */
+    private static double angle( double value, double min, double range ) {
+        return START_ANGLE - ANGLE_RANGE * Math.max(0.0, Math.min(1.0, ( value - min ) / range));
+    }
+
+    private void draw() {
+
+        Insets insets = knob.getInsets();
+        double width = knob.getWidth() - insets.getLeft() - insets.getRight();
+        double height = knob.getHeight() - insets.getTop() - insets.getBottom();
+        double size = Math.min(width, height);
+
+        if ( size <= 0 ) {
+            return;
+        }
+
+        if ( canvas.getWidth() != size || canvas.getHeight() != size ) {
+            canvas.setWidth(size);
+            canvas.setHeight(size);
+        }
+
+        canvas.relocate(insets.getLeft() + ( width - size ) * 0.5, insets.getTop() + ( height - size ) * 0.5);
+
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        double center = size * 0.5;
+        double min = knob.getMinValue();
+        double range = knob.getMaxValue() - min;
+        double target = knob.getTargetValue();
+
+        gc.clearRect(0, 0, size, size);
+        gc.setGlobalAlpha(knob.isDisabled() ? DISABLED_ALPHA : 1.0);
+        gc.setLineCap(StrokeLineCap.BUTT);
+
+        //  Background and tag.
+        fillCircle(gc, knob.getBackgroundColor(), center, center);
+
+        if ( knob.tagVisibleProperty().get() && knob.getTagColor() != null ) {
+            gc.setStroke(knob.getTagColor());
+            gc.setLineWidth(size * 0.03);
+            strokeCircle(gc, center, size * 0.485);
+        }
+
+        //  Target bar and current value marker.
+        double barRadius = size * 0.42;
+        Color indicatorColor = knob.getIndicatorColor();
+
+        gc.setLineWidth(size * 0.05);
+
+        if ( indicatorColor != null ) {
+            gc.setStroke(indicatorColor.deriveColor(0, 1, 1, 0.25));
+            gc.strokeArc(center - barRadius, center - barRadius, 2 * barRadius, 2 * barRadius, START_ANGLE - ANGLE_RANGE, ANGLE_RANGE, ArcType.OPEN);
+        }
+
+        if ( range > 0 ) {
+
+            double targetAngle = angle(target, min, range);
+            double currentAngle = angle(knob.getCurrentValue(), min, range);
+
+            if ( indicatorColor != null ) {
+                gc.setStroke(indicatorColor);
+                gc.strokeArc(center - barRadius, center - barRadius, 2 * barRadius, 2 * barRadius, targetAngle, START_ANGLE - targetAngle, ArcType.OPEN);
+            }
+
+            gc.setLineWidth(size * 0.08);
+            gc.setStroke(knob.getCurrentValueColor());
+            gc.strokeArc(center - barRadius, center - barRadius, 2 * barRadius, 2 * barRadius, currentAngle - 2, 4, ArcType.OPEN);
+
+        }
+
+        //  Knob body, fine resolution selection and target indicator.
+        double bodyRadius = size * 0.33;
+
+        fillCircle(gc, knob.getColor(), center, bodyRadius);
+
+        if ( knob.isSelected() ) {
+            gc.setStroke(knob.getSelectionColor());
+            gc.setLineWidth(size * 0.02);
+            strokeCircle(gc, center, bodyRadius);
+        }
+
+        if ( range > 0 && indicatorColor != null ) {
+
+            double radians = Math.toRadians(angle(target, min, range));
+            double radius = size * 0.26;
+
+            fillCircle(gc, indicatorColor, center + radius * Math.cos(radians), center - radius * Math.sin(radians), size * 0.03);
+
+        }
+
+        //  Target value and unit.
+        gc.setFill(knob.getTextColor());
+        gc.setTextAlign(TextAlignment.CENTER);
+        gc.setTextBaseline(VPos.CENTER);
+        gc.setFont(Font.font(size * 0.12));
+        gc.fillText(format(target), center, center);
+
+        String unit = knob.getUnit();
+
+        if ( unit != null && !unit.isEmpty() ) {
+            gc.setFont(Font.font(size * 0.07));
+            gc.fillText(unit, center, center + size * 0.12);
+        }
+
+        //  Operating mode icon.
+        Image image = ControlledKnob.operatingModeImage(knob.getOperatingMode());
+        double imageSize = size / 11;
+
+        gc.setGlobalBlendMode(BlendMode.MULTIPLY);
+        gc.drawImage(image, ( size - imageSize ) * 0.5, size * 0.815, imageSize, imageSize);
+        gc.setGlobalBlendMode(BlendMode.SRC_OVER);
+
+    }
+
+    private void fillCircle( GraphicsContext gc, Color color, double center, double radius ) {
+        fillCircle(gc, color, center, center, radius);
+    }
+
+    private void fillCircle( GraphicsContext gc, Color color, double x, double y, double radius ) {
+        gc.setFill(color);
+        gc.fillOval(x - radius, y - radius, 2 * radius, 2 * radius);
+    }
+
+    /**
+     * @param value The value to be formatted.
+     * @return The value formatted with the knob's decimals. The text is
+     *         cached until the value or the decimals change, so that redraws
+     *         caused by other properties don't format it again.
+     */
+    private String format( double value ) {
+
+        int decimals = knob.getDecimals();
+
+        if ( decimals != formatDecimals ) {
+            formatDecimals = decimals;
+            format = "%." + decimals + "f";
+            formattedText = null;
+        }
+
+        if ( formattedText == null || Double.doubleToLongBits(value) != Double.doubleToLongBits(formattedValue) ) {
+            formattedText = String.format(format, value);
+            formattedValue = value;
+        }
+
+        return formattedText;
+
+    }
+
+    /**
+     * @param x The X coordinate, in the canvas.
+     * @param y The Y coordinate, in the canvas.
+     * @return The fraction of the value range pointed on the bar by the given
+     *         coordinates. Points in the gap at the bottom of the bar are
+     *         snapped to the nearest end of the bar.
+     */
+    private double fraction( double x, double y ) {
+
+        double center = canvas.getWidth() * 0.5;
+        double angle = Math.toDegrees(Math.atan2(center - y, x - center));
+
+        if ( angle <= START_ANGLE - 360.0 ) {
+            angle += 360.0;
+        }
+
+        double fraction = ( START_ANGLE - angle ) / ANGLE_RANGE;
+
+        if ( fraction > 1.0 ) {
+            fraction = ( fraction - 1.0 < ( 360.0 - ANGLE_RANGE ) / ANGLE_RANGE * 0.5 ) ? 1.0 : 0.0;
+        }
+
+        return fraction;
+
+    }
+
+    private void mouseEvent( MouseEvent event ) {
+
+        if ( event.getButton() != MouseButton.PRIMARY ) {
+            return;
+        }
+
+        if ( event.getEventType() == MouseEvent.MOUSE_RELEASED ) {
+            knob.fireTargeValueSet();
+        } else {
+
+            double min = knob.getMinValue();
+
+            setTargetValue(min + ( knob.getMaxValue() - min ) * fraction(event.getX(), event.getY()));
+
+        }
+
+        event.consume();
+
+    }
+
+    private void scrollEvent( ScrollEvent event ) {
+
+        double delta = event.getDeltaY();
+
+        if ( delta == 0 ) {
+            return;
+        }
+
+        double increment = knob.isSelected() ? knob.getFineIncrement() : knob.getCoarseIncrement();
+
+        setTargetValue(knob.getTargetValue() + Math.signum(delta) * increment);
+        knob.fireTargeValueSet();
+
+        event.consume();
+
+    }
+
+    private void setTargetValue( double value ) {
+        knob.setTargetValue(Math.max(knob.getMinValue(), Math.min(knob.getMaxValue(), value)));
+    }
+
+    private void strokeCircle( GraphicsContext gc, double center, double radius ) {
+        gc.strokeOval(center - radius, center - radius, 2 * radius, 2 * radius);
+    }
+
+}
@@ -17,6 +17,9 @@
 package se.europeanspallationsource.javafx.control.knobs.controlled;
 
 
+import java.util.ArrayList;
+import java.util.List;
+import javafx.application.Platform;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.IntegerProperty;
@@ -28,6 +31,7 @@ import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
 import javafx.beans.value.ChangeListener;
+import javafx.scene.Node;
 import javafx.scene.effect.BlendMode;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
@@ -37,6 +41,8 @@ import se.europeanspallationsource.javafx.control.knobs.controller.Controllable;
 import se.europeanspallationsource.javafx.control.knobs.controller.Controllers;
 import se.europeanspallationsource.javafx.control.knobs.controller.spi.Controller;
 
+import static se.europeanspallationsource.javafx.control.knobs.controlled.RenderingMode.CANVAS;
+import static se.europeanspallationsource.javafx.control.knobs.controlled.RenderingMode.SCENE_GRAPH;
 import static se.europeanspallationsource.javafx.control.knobs.controller.Controllable.OperatingMode.CONTINUOUS;
 
 
@@ -60,6 +66,24 @@ public class ControlledKnob extends Knob implements Controllable {
         init();
     }
 
+    /*
+     * ---- acceleration -------------------------------------------------------
+     */
+    private final DoubleProperty acceleration = new SimpleDoubleProperty(this, "acceleration", 0);
+
+    @Override
+    public DoubleProperty accelerationProperty() {
+        return acceleration;
+    }
+
+    public double getAcceleration() {
+        return acceleration.get();
+    }
+
+    public void setAcceleration( double acceleration ) {
+        this.acceleration.set(acceleration);
+    }
+
     /*
      * ---- channel ------------------------------------------------------------
      */
@@ -98,15 +122,30 @@ public class ControlledKnob extends Knob implements Controllable {
 
     /*
      * ---- controller ---------------------------------------------------------
+     * While controllers are discovered, setting the identifier of a controller
+     * not yet available leaves the property set to CONTROLLER_NONE, and the
+     * identifier is set again, and the knob attached, when it becomes
+     * available.
      */
+    private String pendingController = null;  //  JavaFX thread only.
     private final StringProperty controller = new SimpleStringProperty(this, "controller", CONTROLLER_NONE) {
         @Override
         protected void invalidated() {
 
             String val = get();
 
-            if ( val == null || !Controllers.get().getIdentifiers().contains(val) ) {
+            pendingController = null;
+
+            if ( val == null ) {
+                set(CONTROLLER_NONE);
+            } else if ( !CONTROLLER_NONE.equals(val) && !Controllers.get().exists(val) ) {
+
                 set(CONTROLLER_NONE);
+
+                if ( !Controllers.get().isDiscoveryCompleted() ) {
+                    awaitController(val);
+                }
+
             }
 
         }
@@ -136,6 +175,26 @@ public class ControlledKnob extends Knob implements Controllable {
         this.controller.set(controller);
     }
 
+    /*
+     * ---- currentValueForwardingRate -----------------------------------------
+     * The maximum number of current value changes per second forwarded to the
+     * controller. 0 means no limit.
+     */
+    private final DoubleProperty currentValueForwardingRate = new SimpleDoubleProperty(this, "currentValueForwardingRate", 0);
+
+    public DoubleProperty currentValueForwardingRateProperty() {
+        return currentValueForwardingRate;
+    }
+
+    @Override
+    public double getCurrentValueForwardingRate() {
+        return currentValueForwardingRate.get();
+    }
+
+    public void setCurrentValueForwardingRate( double currentValueForwardingRate ) {
+        this.currentValueForwardingRate.set(currentValueForwardingRate);
+    }
+
     /*
      * ---- fineIncrement ------------------------------------------------------
      */
@@ -173,17 +232,7 @@ public class ControlledKnob extends Knob implements Controllable {
                 set(CONTINUOUS);
             }
 
-            switch ( get() ) {
-                case CLIC_SET_AND_RELEASE:
-                    operatinModeView.setImage(IMG_CLIC_SET_AND_RELEASE);
-                    break;
-                case CONTINUOUS:
-                    operatinModeView.setImage(IMG_CONTINUOUS);
-                    break;
-                case SET_AND_CLICK:
-                    operatinModeView.setImage(IMG_SET_AND_CLICK);
-                    break;
-            }
+            operatinModeView.setImage(operatingModeImage(get()));
 
         }
     };
@@ -201,6 +250,38 @@ public class ControlledKnob extends Knob implements Controllable {
         this.operatingMode.set(operatingMode);
     }
 
+    /*
+     * ---- renderingMode ------------------------------------------------------
+     * In CANVAS mode the knob's own nodes are replaced by the single canvas of
+     * a CanvasKnobRenderer, that draws the knob and handles the mouse
+     * interaction. The knob's nodes are put back in SCENE_GRAPH mode.
+     */
+    private CanvasKnobRenderer canvasRenderer = null;  //  JavaFX thread only.
+    private boolean componentsInitialized;  //  JavaFX thread only.
+    private List<Node> sceneGraphChildren = null;  //  JavaFX thread only.
+    private final ObjectProperty<RenderingMode> renderingMode = new SimpleObjectProperty<RenderingMode>(this, "renderingMode", SCENE_GRAPH) {
+        @Override
+        protected void invalidated() {
+            if ( get() == null ) {
+                set(SCENE_GRAPH);
+            } else {
+                applyRenderingMode();
+            }
+        }
+    };
+
+    public ObjectProperty<RenderingMode> renderingModeProperty() {
+        return renderingMode;
+    }
+
+    public RenderingMode getRenderingMode() {
+        return renderingMode.get();
+    }
+
+    public void setRenderingMode( RenderingMode renderingMode ) {
+        this.renderingMode.set(renderingMode);
+    }
+
     /*
      * ---- tagVisible ---------------------------------------------------------
      */
@@ -221,11 +302,85 @@ public class ControlledKnob extends Knob implements Controllable {
 
     }
 
+    /*
+     * ---- targetSink ---------------------------------------------------------
+     * When set, the target values set on this knob are also written into it,
+     * throttled according to targetThrottle and batched with the ones of the
+     * other knobs sharing the same sink.
+     */
+    private TargetSinkDispatcher targetSinkDispatcher = null;  //  JavaFX thread only.
+    private final ObjectProperty<TargetSink> targetSink = new SimpleObjectProperty<TargetSink>(this, "targetSink", null) {
+        @Override
+        protected void invalidated() {
+
+            TargetSink sink = get();
+
+            if ( targetSinkDispatcher != null ) {
+                targetSinkDispatcher.remove(ControlledKnob.this);
+                targetSinkDispatcher.release();
+                targetSinkDispatcher = null;
+            }
+
+            if ( sink != null ) {
+                targetSinkDispatcher = TargetSinkDispatcher.acquire(sink);
+            }
+
+        }
+    };
+
+    public ObjectProperty<TargetSink> targetSinkProperty() {
+        return targetSink;
+    }
+
+    public TargetSink getTargetSink() {
+        return targetSink.get();
+    }
+
+    public void setTargetSink( TargetSink targetSink ) {
+        this.targetSink.set(targetSink);
+    }
+
+    /*
+     * ---- targetThrottle -----------------------------------------------------
+     */
+    private final ObjectProperty<TargetThrottle> targetThrottle = new SimpleObjectProperty<TargetThrottle>(this, "targetThrottle", TargetThrottle.TRAILING) {
+        @Override
+        protected void invalidated() {
+            if ( get() == null ) {
+                set(TargetThrottle.TRAILING);
+            }
+        }
+    };
+
+    public ObjectProperty<TargetThrottle> targetThrottleProperty() {
+        return targetThrottle;
+    }
+
+    public TargetThrottle getTargetThrottle() {
+        return targetThrottle.get();
+    }
+
+    public void setTargetThrottle( TargetThrottle targetThrottle ) {
+        this.targetThrottle.set(targetThrottle);
+    }
+
     /*
      * -------------------------------------------------------------------------
      */
+    /**
+     * Release the resources used by this knob, removing it from its
+     * controller and from its target sink. Must be called on the JavaFX
+     * thread when the knob is no longer used.
+     */
     public void dispose() {
 
+        setTargetSink(null);
+
+        if ( canvasRenderer != null ) {
+            canvasRenderer.dispose();
+            canvasRenderer = null;
+        }
+
         String c = getController();
 
         if ( !CONTROLLER_NONE.equals(c) ) {
@@ -239,11 +394,19 @@ public class ControlledKnob extends Knob implements Controllable {
 
     }
 
+    /**
+     * Also writes the target value into the {@link #getTargetSink()}, if
+     * any.
+     */
     @Override
-    @SuppressWarnings( "FinalizeDeclaration" )
-    protected void finalize() throws Throwable {
-        dispose();
-        super.finalize();
+    public void fireTargeValueSet() {
+
+        super.fireTargeValueSet();
+
+        if ( targetSinkDispatcher != null ) {
+            targetSinkDispatcher.targetSet(this, getTargetValue(), getTargetThrottle());
+        }
+
     }
 
     @Override
@@ -251,23 +414,16 @@ public class ControlledKnob extends Knob implements Controllable {
 
         super.initComponents();
 
-        switch ( getOperatingMode() ) {
-            case CLIC_SET_AND_RELEASE:
-                operatinModeView.setImage(IMG_CLIC_SET_AND_RELEASE);
-                break;
-            case CONTINUOUS:
-                operatinModeView.setImage(IMG_CONTINUOUS);
-                break;
-            case SET_AND_CLICK:
-                operatinModeView.setImage(IMG_SET_AND_CLICK);
-                break;
-        }
-
+        operatinModeView.setImage(operatingModeImage(getOperatingMode()));
         operatinModeView.setBlendMode(BlendMode.MULTIPLY);
         operatinModeView.setSmooth(true);
 
         pane.getChildren().add(operatinModeView);
 
+        componentsInitialized = true;
+
+        applyRenderingMode();
+
     }
 
     @Override
@@ -293,6 +449,79 @@ public class ControlledKnob extends Knob implements Controllable {
 
     }
 
+    /**
+     * @param mode The operating mode.
+     * @return The icon representing the given operating mode.
+     */
+    static Image operatingModeImage( OperatingMode mode ) {
+        switch ( mode ) {
+            case CLIC_SET_AND_RELEASE:
+                return IMG_CLIC_SET_AND_RELEASE;
+            case SET_AND_CLICK:
+                return IMG_SET_AND_CLICK;
+            case CONTINUOUS:
+            default:
+                return IMG_CONTINUOUS;
+        }
+    }
+
+    /**
+     * Replace the knob's own nodes with the canvas, or vice versa, according
+     * to the current rendering mode. Does nothing until the knob's nodes are
+     * created.
+     */
+    private void applyRenderingMode() {
+
+        if ( !componentsInitialized ) {
+            return;
+        }
+
+        if ( getRenderingMode() == CANVAS ) {
+
+            if ( canvasRenderer == null ) {
+
+                sceneGraphChildren = new ArrayList<>(getChildren());
+                canvasRenderer = new CanvasKnobRenderer(this);
+
+                getChildren().setAll(canvasRenderer.getCanvas());
+
+            }
+
+        } else if ( canvasRenderer != null ) {
+
+            canvasRenderer.dispose();
+            canvasRenderer = null;
+
+            getChildren().setAll(sceneGraphChildren);
+
+            sceneGraphChildren = null;
+
+        }
+
+    }
+
+    /**
+     * Attach this knob to the given controller when it becomes available,
+     * unless another controller was set in the meantime.
+     *
+     * @param identifier The identifier of the controller not yet available.
+     */
+    private void awaitController( String identifier ) {
+
+        pendingController = identifier;
+
+        Controllers.get().whenAvailable(identifier).thenAccept(c -> {
+            if ( c != null ) {
+                Platform.runLater(() -> {
+                    if ( identifier.equals(pendingController) ) {
+                        setController(identifier);
+                    }
+                });
+            }
+        });
+
+    }
+
     private void init() {
         super.setTagVisible(true);
         super.setCurrentValueColor(DEFAULT_CURRENT_VALUE_COLOR);
@@ -17,12 +17,12 @@
 package se.europeanspallationsource.javafx.control.knobs.controlled;
 
 
+import java.text.MessageFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.function.ObjIntConsumer;
 import javafx.event.EventHandler;
-import javafx.geometry.Dimension2D;
 import javafx.geometry.Insets;
 import javafx.scene.paint.Color;
 import javafx.scene.paint.Stop;
@@ -37,188 +37,497 @@ import se.europeanspallationsource.javafx.control.knobs.controller.Controllable;
 @SuppressWarnings( "ClassWithoutLogger" )
 public class ControlledKnobBuilder {
 
+    /*
+     * Presence bits of the properties set in the builder.
+     */
+    private static final long ACCELERATION                  = 1L << 0;
+    private static final long BACKGROUND_COLOR              = 1L << 1;
+    private static final long CHANNEL                       = 1L << 2;
+    private static final long COARSE_INCREMENT              = 1L << 3;
+    private static final long COLOR                         = 1L << 4;
+    private static final long CONTROLLER                    = 1L << 5;
+    private static final long CURRENT_VALUE                 = 1L << 6;
+    private static final long CURRENT_VALUE_COLOR           = 1L << 7;
+    private static final long CURRENT_VALUE_FORWARDING_RATE = 1L << 8;
+    private static final long DECIMALS                      = 1L << 9;
+    private static final long DRAG_DISABLED                 = 1L << 10;
+    private static final long EXTREMA_VISIBLE               = 1L << 11;
+    private static final long FINE_INCREMENT                = 1L << 12;
+    private static final long GRADIENT_STOPS                = 1L << 13;
+    private static final long ID                            = 1L << 14;
+    private static final long INDICATOR_COLOR               = 1L << 15;
+    private static final long LAYOUT_X                      = 1L << 16;
+    private static final long LAYOUT_Y                      = 1L << 17;
+    private static final long MAX_HEIGHT                    = 1L << 18;
+    private static final long MAX_SIZE                      = 1L << 19;
+    private static final long MAX_VALUE                     = 1L << 20;
+    private static final long MAX_WIDTH                     = 1L << 21;
+    private static final long MIN_HEIGHT                    = 1L << 22;
+    private static final long MIN_SIZE                      = 1L << 23;
+    private static final long MIN_VALUE                     = 1L << 24;
+    private static final long MIN_WIDTH                     = 1L << 25;
+    private static final long ON_ADJUSTED                   = 1L << 26;
+    private static final long ON_ADJUSTING                  = 1L << 27;
+    private static final long ON_TARGET_SET                 = 1L << 28;
+    private static final long OPACITY                       = 1L << 29;
+    private static final long OPERATING_MODE                = 1L << 30;
+    private static final long PADDING                       = 1L << 31;
+    private static final long PREF_HEIGHT                   = 1L << 32;
+    private static final long PREF_SIZE                     = 1L << 33;
+    private static final long PREF_WIDTH                    = 1L << 34;
+    private static final long RENDERING_MODE                = 1L << 35;
+    private static final long SCALE_X                       = 1L << 36;
+    private static final long SCALE_Y                       = 1L << 37;
+    private static final long SELECTED                      = 1L << 38;
+    private static final long SELECTION_COLOR               = 1L << 39;
+    private static final long TAG_COLOR                     = 1L << 40;
+    private static final long TARGET_SINK                   = 1L << 41;
+    private static final long TARGET_THROTTLE               = 1L << 42;
+    private static final long TARGET_VALUE                  = 1L << 43;
+    private static final long TARGET_VALUE_ALWAYS_VISIBLE   = 1L << 44;
+    private static final long TEXT_COLOR                    = 1L << 45;
+    private static final long TRANSLATE_X                   = 1L << 46;
+    private static final long TRANSLATE_Y                   = 1L << 47;
+    private static final long UNIT                          = 1L << 48;
+    private static final long ZERO_DETENT_ENABLED           = 1L << 49;
+
     public static ControlledKnobBuilder create() {
         return new ControlledKnobBuilder();
     }
 
-    final Map<String, Object> properties = new HashMap<>(4);
+    /**
+     * Create a builder having the properties of the given knob, to build knobs
+     * looking and behaving like it.
+     * <P>
+     * The properties identifying a single knob are not copied: its
+     * {@code id}, the controller and channel of the physical encoder it is
+     * bound to, its position ({@code layoutX}, {@code layoutY},
+     * {@code translateX} and {@code translateY}), and its current and target
+     * values. They must be set on the returned builder, or for each knob by
+     * the customizer of {@link #buildAll(int, ObjIntConsumer)}.
+     *
+     * @param knob The template knob.
+     * @return A new builder initialized from the given knob.
+     */
+    public static ControlledKnobBuilder from( final ControlledKnob knob ) {
+        return new ControlledKnobBuilder()
+            .minValue(knob.getMinValue())
+            .maxValue(knob.getMaxValue())
+            .acceleration(knob.getAcceleration())
+            .backgroundColor(knob.getBackgroundColor())
+            .coarseIncrement(knob.getCoarseIncrement())
+            .color(knob.getColor())
+            .currentValueColor(knob.getCurrentValueColor())
+            .currentValueForwardingRate(knob.getCurrentValueForwardingRate())
+            .decimals(knob.getDecimals())
+            .dragDisabled(knob.isDragDisabled())
+            .extremaVisible(knob.isExtremaVisible())
+            .fineIncrement(knob.getFineIncrement())
+            .gradientStops(knob.getGradientStops())
+            .indicatorColor(knob.getIndicatorColor())
+            .maxHeight(knob.getMaxHeight())
+            .maxWidth(knob.getMaxWidth())
+            .minHeight(knob.getMinHeight())
+            .minWidth(knob.getMinWidth())
+            .onAdjusted(knob.getOnAdjusted())
+            .onAdjusting(knob.getOnAdjusting())
+            .onTargetSet(knob.getOnTargetSet())
+            .opacity(knob.getOpacity())
+            .operatingMode(knob.getOperatingMode())
+            .padding(knob.getPadding())
+            .prefHeight(knob.getPrefHeight())
+            .prefWidth(knob.getPrefWidth())
+            .renderingMode(knob.getRenderingMode())
+            .scaleX(knob.getScaleX())
+            .scaleY(knob.getScaleY())
+            .selected(knob.isSelected())
+            .selectionColor(knob.getSelectionColor())
+            .tagColor(knob.getTagColor())
+            .targetSink(knob.getTargetSink())
+            .targetThrottle(knob.getTargetThrottle())
+            .targetValueAlwaysVisible(knob.isTargetValueAlwaysVisible())
+            .textColor(knob.getTextColor())
+            .unit(knob.getUnit())
+            .zeroDetentEnabled(knob.isZeroDetentEnabled());
+    }
+
+    /**
+     * Bit mask of the properties set in this builder.
+     */
+    private long present = 0L;
+
+    private double acceleration;
+    private Color backgroundColor;
+    private int channel;
+    private double coarseIncrement;
+    private Color color;
+    private String controller;
+    private double currentValue;
+    private Color currentValueColor;
+    private double currentValueForwardingRate;
+    private int decimals;
+    private boolean dragDisabled;
+    private boolean extremaVisible;
+    private double fineIncrement;
+    private List<Stop> gradientStops;
+    private String id;
+    private Color indicatorColor;
+    private double layoutX;
+    private double layoutY;
+    private double maxHeight;
+    private double maxSizeHeight;
+    private double maxSizeWidth;
+    private double maxValue;
+    private double maxWidth;
+    private double minHeight;
+    private double minSizeHeight;
+    private double minSizeWidth;
+    private double minValue;
+    private double minWidth;
+    private EventHandler<KnobEvent> onAdjusted;
+    private EventHandler<KnobEvent> onAdjusting;
+    private EventHandler<KnobEvent> onTargetSet;
+    private double opacity;
+    private Controllable.OperatingMode operatingMode;
+    private Insets padding;
+    private double prefHeight;
+    private double prefSizeHeight;
+    private double prefSizeWidth;
+    private double prefWidth;
+    private RenderingMode renderingMode;
+    private double scaleX;
+    private double scaleY;
+    private boolean selected;
+    private Color selectionColor;
+    private Color tagColor;
+    private TargetSink targetSink;
+    private TargetThrottle targetThrottle;
+    private double targetValue;
+    private boolean targetValueAlwaysVisible;
+    private Color textColor;
+    private double translateX;
+    private double translateY;
+    private String unit;
+    private boolean zeroDetentEnabled;
 
     protected ControlledKnobBuilder() {
     }
 
+    /**
+     * Copy all the properties of the given builder into this one.
+     *
+     * @param other The builder to be copied.
+     * @return This builder.
+     */
+    private ControlledKnobBuilder copyFrom( final ControlledKnobBuilder other ) {
+
+        present = other.present;
+
+        acceleration = other.acceleration;
+        backgroundColor = other.backgroundColor;
+        channel = other.channel;
+        coarseIncrement = other.coarseIncrement;
+        color = other.color;
+        controller = other.controller;
+        currentValue = other.currentValue;
+        currentValueColor = other.currentValueColor;
+        currentValueForwardingRate = other.currentValueForwardingRate;
+        decimals = other.decimals;
+        dragDisabled = other.dragDisabled;
+        extremaVisible = other.extremaVisible;
+        fineIncrement = other.fineIncrement;
+        gradientStops = copyOf(other.gradientStops);
+        id = other.id;
+        indicatorColor = other.indicatorColor;
+        layoutX = other.layoutX;
+        layoutY = other.layoutY;
+        maxHeight = other.maxHeight;
+        maxSizeHeight = other.maxSizeHeight;
+        maxSizeWidth = other.maxSizeWidth;
+        maxValue = other.maxValue;
+        maxWidth = other.maxWidth;
+        minHeight = other.minHeight;
+        minSizeHeight = other.minSizeHeight;
+        minSizeWidth = other.minSizeWidth;
+        minValue = other.minValue;
+        minWidth = other.minWidth;
+        onAdjusted = other.onAdjusted;
+        onAdjusting = other.onAdjusting;
+        onTargetSet = other.onTargetSet;
+        opacity = other.opacity;
+        operatingMode = other.operatingMode;
+        padding = other.padding;
+        prefHeight = other.prefHeight;
+        prefSizeHeight = other.prefSizeHeight;
+        prefSizeWidth = other.prefSizeWidth;
+        prefWidth = other.prefWidth;
+        renderingMode = other.renderingMode;
+        scaleX = other.scaleX;
+        scaleY = other.scaleY;
+        selected = other.selected;
+        selectionColor = other.selectionColor;
+        tagColor = other.tagColor;
+        targetSink = other.targetSink;
+        targetThrottle = other.targetThrottle;
+        targetValue = other.targetValue;
+        targetValueAlwaysVisible = other.targetValueAlwaysVisible;
+        textColor = other.textColor;
+        translateX = other.translateX;
+        translateY = other.translateY;
+        unit = other.unit;
+        zeroDetentEnabled = other.zeroDetentEnabled;
+
+        return this;
+
+    }
+
+    /**
+     * The gradient stops list is mutable: it is copied when it enters this
+     * builder, when it is copied into another builder, and when it is set
+     * into a knob, so that no list is ever shared.
+     *
+     * @param stops The list to be copied, or {@code null}.
+     * @return A copy of the given list, or {@code null}.
+     */
+    private static List<Stop> copyOf( final List<Stop> stops ) {
+        return ( stops == null ) ? null : new ArrayList<>(stops);
+    }
+
+    private boolean has( final long property ) {
+        return ( present & property ) != 0L;
+    }
+
+    public final ControlledKnobBuilder acceleration( final double value ) {
+
+        this.acceleration = value;
+        present |= ACCELERATION;
+
+        return this;
+
+    }
+
     public final ControlledKnobBuilder backgroundColor( final Color color ) {
 
-        properties.put("backgroundColor", color);
+        this.backgroundColor = color;
+        present |= BACKGROUND_COLOR;
 
         return this;
 
     }
 
-    @SuppressWarnings( "unchecked" )
     public ControlledKnob build() {
 
         final ControlledKnob knob = new ControlledKnob();
 
+        if ( present == 0L ) {
+            return knob;
+        }
+
         //  Inter-dependent properties.
-        if ( properties.containsKey("minValue") ) {
-            knob.setMinValue((double) properties.get("minValue"));
+        if ( has(MIN_VALUE) ) {
+            knob.setMinValue(minValue);
         }
-        if ( properties.containsKey("maxValue") ) {
-            knob.setMaxValue((double) properties.get("maxValue"));
+        if ( has(MAX_VALUE) ) {
+            knob.setMaxValue(maxValue);
         }
-        if ( properties.containsKey("currentValue") ) {
-            knob.setCurrentValue((double) properties.get("currentValue"));
+        if ( has(CURRENT_VALUE) ) {
+            knob.setCurrentValue(currentValue);
         }
 
         //  All other properties.
-        if ( properties.containsKey("backgroundColor") ) {
-            knob.setBackgroundColor((Color) properties.get("backgroundColor"));
+        if ( has(ACCELERATION) ) {
+            knob.setAcceleration(acceleration);
         }
-        if ( properties.containsKey("channel") ) {
-            knob.setChannel((int) properties.get("channel"));
+        if ( has(BACKGROUND_COLOR) ) {
+            knob.setBackgroundColor(backgroundColor);
         }
-        if ( properties.containsKey("coarseIncrement") ) {
-            knob.setCoarseIncrement((double) properties.get("coarseIncrement"));
+        if ( has(CHANNEL) ) {
+            knob.setChannel(channel);
         }
-        if ( properties.containsKey("color") ) {
-            knob.setColor((Color) properties.get("color"));
+        if ( has(COARSE_INCREMENT) ) {
+            knob.setCoarseIncrement(coarseIncrement);
         }
-        if ( properties.containsKey("currentValueColor") ) {
-            knob.setCurrentValueColor((Color) properties.get("currentValueColor"));
+        if ( has(COLOR) ) {
+            knob.setColor(color);
         }
-        if ( properties.containsKey("decimals") ) {
-            knob.setDecimals((int) properties.get("decimals"));
+        if ( has(CURRENT_VALUE_COLOR) ) {
+            knob.setCurrentValueColor(currentValueColor);
         }
-        if ( properties.containsKey("dragDisabled") ) {
-            knob.setDragDisabled((boolean) properties.get("dragDisabled"));
+        if ( has(CURRENT_VALUE_FORWARDING_RATE) ) {
+            knob.setCurrentValueForwardingRate(currentValueForwardingRate);
         }
-        if ( properties.containsKey("extremaVisible") ) {
-            knob.setExtremaVisible((boolean) properties.get("extremaVisible"));
+        if ( has(DECIMALS) ) {
+            knob.setDecimals(decimals);
         }
-        if ( properties.containsKey("fineIncrement") ) {
-            knob.setFineIncrement((double) properties.get("fineIncrement"));
+        if ( has(DRAG_DISABLED) ) {
+            knob.setDragDisabled(dragDisabled);
         }
-        if ( properties.containsKey("gradientStops") ) {
-            knob.setGradientStops((List<Stop>) properties.get("gradientStops"));
+        if ( has(EXTREMA_VISIBLE) ) {
+            knob.setExtremaVisible(extremaVisible);
         }
-        if ( properties.containsKey("id") ) {
-            knob.setId((String) properties.get("id"));
+        if ( has(FINE_INCREMENT) ) {
+            knob.setFineIncrement(fineIncrement);
         }
-        if ( properties.containsKey("indicatorColor") ) {
-            knob.setIndicatorColor((Color) properties.get("indicatorColor"));
+        if ( has(GRADIENT_STOPS) ) {
+            knob.setGradientStops(copyOf(gradientStops));
         }
-        if ( properties.containsKey("layoutX") ) {
-            knob.setLayoutX((double) properties.get("layoutX"));
+        if ( has(ID) ) {
+            knob.setId(id);
         }
-        if ( properties.containsKey("layoutY") ) {
-            knob.setLayoutY((double) properties.get("layoutY"));
+        if ( has(INDICATOR_COLOR) ) {
+            knob.setIndicatorColor(indicatorColor);
         }
-        if ( properties.containsKey("maxHeight") ) {
-            knob.setMaxHeight((double) properties.get("maxHeight"));
+        if ( has(LAYOUT_X) ) {
+            knob.setLayoutX(layoutX);
         }
-        if ( properties.containsKey("maxSize") ) {
-
-            Dimension2D maxSize = (Dimension2D) properties.get("maxSize");
-
-            knob.setMaxSize(maxSize.getWidth(), maxSize.getHeight());
-
+        if ( has(LAYOUT_Y) ) {
+            knob.setLayoutY(layoutY);
         }
-        if ( properties.containsKey("maxWidth") ) {
-            knob.setMaxWidth((double) properties.get("maxWidth"));
+        if ( has(MAX_HEIGHT) ) {
+            knob.setMaxHeight(maxHeight);
         }
-        if ( properties.containsKey("minHeight") ) {
-            knob.setMinHeight((double) properties.get("minHeight"));
+        if ( has(MAX_SIZE) ) {
+            knob.setMaxSize(maxSizeWidth, maxSizeHeight);
         }
-        if ( properties.containsKey("minSize") ) {
-
-            Dimension2D minSize = (Dimension2D) properties.get("minSize");
-
-            knob.setMinSize(minSize.getWidth(), minSize.getHeight());
-
+        if ( has(MAX_WIDTH) ) {
+            knob.setMaxWidth(maxWidth);
         }
-        if ( properties.containsKey("minWidth") ) {
-            knob.setMinWidth((double) properties.get("minWidth"));
+        if ( has(MIN_HEIGHT) ) {
+            knob.setMinHeight(minHeight);
         }
-        if ( properties.containsKey("onAdjusted") ) {
-            knob.setOnAdjusted((EventHandler<KnobEvent>) properties.get("onAdjusted"));
+        if ( has(MIN_SIZE) ) {
+            knob.setMinSize(minSizeWidth, minSizeHeight);
         }
-        if ( properties.containsKey("onAdjusting") ) {
-            knob.setOnAdjusting((EventHandler<KnobEvent>) properties.get("onAdjusting"));
+        if ( has(MIN_WIDTH) ) {
+            knob.setMinWidth(minWidth);
         }
-        if ( properties.containsKey("onTargetSet") ) {
-            knob.setOnTargetSet((EventHandler<KnobEvent>) properties.get("onTargetSet"));
+        if ( has(ON_ADJUSTED) ) {
+            knob.setOnAdjusted(onAdjusted);
         }
-        if ( properties.containsKey("opacity") ) {
-            knob.setOpacity((double) properties.get("opacity"));
+        if ( has(ON_ADJUSTING) ) {
+            knob.setOnAdjusting(onAdjusting);
         }
-        if ( properties.containsKey("operatingMode") ) {
-            knob.setOperatingMode((Controllable.OperatingMode) properties.get("operatingMode"));
+        if ( has(ON_TARGET_SET) ) {
+            knob.setOnTargetSet(onTargetSet);
         }
-        if ( properties.containsKey("padding") ) {
-            knob.setPadding((Insets) properties.get("padding"));
+        if ( has(OPACITY) ) {
+            knob.setOpacity(opacity);
         }
-        if ( properties.containsKey("prefHeight") ) {
-            knob.setPrefHeight((double) properties.get("prefHeight"));
+        if ( has(OPERATING_MODE) ) {
+            knob.setOperatingMode(operatingMode);
         }
-        if ( properties.containsKey("prefSize") ) {
-
-            Dimension2D size = (Dimension2D) properties.get("prefSize");
-
-            knob.setPrefSize(size.getWidth(), size.getHeight());
-
+        if ( has(PADDING) ) {
+            knob.setPadding(padding);
+        }
+        if ( has(PREF_HEIGHT) ) {
+            knob.setPrefHeight(prefHeight);
+        }
+        if ( has(PREF_SIZE) ) {
+            knob.setPrefSize(prefSizeWidth, prefSizeHeight);
         }
-        if ( properties.containsKey("prefWidth") ) {
-            knob.setPrefWidth((double) properties.get("prefWidth"));
+        if ( has(PREF_WIDTH) ) {
+            knob.setPrefWidth(prefWidth);
         }
-        if ( properties.containsKey("scaleX") ) {
-            knob.setScaleX((double) properties.get("scaleX"));
+        if ( has(RENDERING_MODE) ) {
+            knob.setRenderingMode(renderingMode);
         }
-        if ( properties.containsKey("scaleY") ) {
-            knob.setScaleY((double) properties.get("scaleY"));
+        if ( has(SCALE_X) ) {
+            knob.setScaleX(scaleX);
         }
-        if ( properties.containsKey("selected") ) {
-            knob.setSelected((boolean) properties.get("selected"));
+        if ( has(SCALE_Y) ) {
+            knob.setScaleY(scaleY);
         }
-        if ( properties.containsKey("selectionColor") ) {
-            knob.setSelectionColor((Color) properties.get("selectionColor"));
+        if ( has(SELECTED) ) {
+            knob.setSelected(selected);
         }
-        if ( properties.containsKey("tagColor") ) {
-            knob.setTagColor((Color) properties.get("tagColor"));
+        if ( has(SELECTION_COLOR) ) {
+            knob.setSelectionColor(selectionColor);
         }
-        if ( properties.containsKey("targetValue") ) {
-            knob.setTargetValue((double) properties.get("targetValue"));
+        if ( has(TAG_COLOR) ) {
+            knob.setTagColor(tagColor);
         }
-        if ( properties.containsKey("targetValueAlwaysVisible") ) {
-            knob.setTargetValueAlwaysVisible((boolean) properties.get("targetValueAlwaysVisible"));
+        if ( has(TARGET_SINK) ) {
+            knob.setTargetSink(targetSink);
         }
-        if ( properties.containsKey("textColor") ) {
-            knob.setTextColor((Color) properties.get("textColor"));
+        if ( has(TARGET_THROTTLE) ) {
+            knob.setTargetThrottle(targetThrottle);
         }
-        if ( properties.containsKey("translateX") ) {
-            knob.setTranslateX((double) properties.get("translateX"));
+        if ( has(TARGET_VALUE) ) {
+            knob.setTargetValue(targetValue);
         }
-        if ( properties.containsKey("translateY") ) {
-            knob.setTranslateY((double) properties.get("translateY"));
+        if ( has(TARGET_VALUE_ALWAYS_VISIBLE) ) {
+            knob.setTargetValueAlwaysVisible(targetValueAlwaysVisible);
         }
-        if ( properties.containsKey("unit") ) {
-            knob.setUnit((String) properties.get("unit"));
+        if ( has(TEXT_COLOR) ) {
+            knob.setTextColor(textColor);
         }
-        if ( properties.containsKey("zeroDetentEnabled") ) {
-            knob.setZeroDetentEnabled((boolean) properties.get("zeroDetentEnabled"));
+        if ( has(TRANSLATE_X) ) {
+            knob.setTranslateX(translateX);
+        }
+        if ( has(TRANSLATE_Y) ) {
+            knob.setTranslateY(translateY);
+        }
+        if ( has(UNIT) ) {
+            knob.setUnit(unit);
+        }
+        if ( has(ZERO_DETENT_ENABLED) ) {
+            knob.setZeroDetentEnabled(zeroDetentEnabled);
         }
 
         //  The following must be the last one(s).
-        if ( properties.containsKey("controller") ) {
-            knob.setController((String) properties.get("controller"));
+        if ( has(CONTROLLER) ) {
+            knob.setController(controller);
         }
 
         return knob;
 
     }
 
+    /**
+     * Build {@code count} knobs sharing the properties set so far in this
+     * builder. Before each knob is built, the given {@code customizer} can
+     * set the properties specific to that knob (e.g. its channel) on a
+     * working copy of this builder, which is reset to this builder's state
+     * for every knob. This builder is never modified.
+     *
+     * @param count      The number of knobs to be built.
+     * @param customizer The function receiving the working copy and the
+     *                   index [0, count) of the knob being built. Can be
+     *                   {@code null}.
+     * @return An array of {@code count} new knobs.
+     */
+    public ControlledKnob[] buildAll( final int count, final ObjIntConsumer<ControlledKnobBuilder> customizer ) {
+
+        if ( count < 0 ) {
+            throw new IllegalArgumentException(MessageFormat.format("Negative count [{0}].", count));
+        }
+
+        final ControlledKnob[] knobs = new ControlledKnob[count];
+
+        if ( customizer == null ) {
+            for ( int i = 0; i < count; i++ ) {
+                knobs[i] = build();
+            }
+        } else {
+
+            final ControlledKnobBuilder working = new ControlledKnobBuilder();
+
+            for ( int i = 0; i < count; i++ ) {
+                working.copyFrom(this);
+                customizer.accept(working, i);
+                knobs[i] = working.build();
+            }
+
+        }
+
+        return knobs;
+
+    }
+
     public final ControlledKnobBuilder channel( final int channel ) {
 
-        properties.put("channel", channel);
+        this.channel = channel;
+        present |= CHANNEL;
 
         return this;
 
@@ -226,7 +535,8 @@ public class ControlledKnobBuilder {
 
     public final ControlledKnobBuilder coarseIncrement( final double value ) {
 
-        properties.put("coarseIncrement", value);
+        this.coarseIncrement = value;
+        present |= COARSE_INCREMENT;
 
         return this;
 
@@ -234,7 +544,8 @@ public class ControlledKnobBuilder {
 
     public final ControlledKnobBuilder color( final Color color ) {
 
-        properties.put("color", color);
+        this.color = color;
+        present |= COLOR;
 
         return this;
 
@@ -242,15 +553,25 @@ public class ControlledKnobBuilder {
 
     public final ControlledKnobBuilder controller( final String controller ) {
 
-        properties.put("controller", controller);
+        this.controller = controller;
+        present |= CONTROLLER;
 
         return this;
 
     }
 
+    /**
+     * @return A new builder having all the properties set so far in this
+     *         one, to be used as a template.
+     */
+    public final ControlledKnobBuilder copy() {
+        return new ControlledKnobBuilder().copyFrom(this);
+    }
+
     public final ControlledKnobBuilder currentValue( final double value ) {
 
-        properties.put("currentValue", value);
+        this.currentValue = value;
+        present |= CURRENT_VALUE;
 
         return this;
 
@@ -258,7 +579,17 @@ public class ControlledKnobBuilder {
 
     public final ControlledKnobBuilder currentValueColor( final Color color ) {
 
-        properties.put("currentValueColor", color);
+        this.currentValueColor = color;
+        present |= CURRENT_VALUE_COLOR;
+
+        return this;
+
+    }
+
+    public final ControlledKnobBuilder currentValueForwardingRate( final double value ) {
+
+        this.currentValueForwardingRate = value;
+        present |= CURRENT_VALUE_FORWARDING_RATE;
 
         return this;
 
@@ -266,7 +597,8 @@ public class ControlledKnobBuilder {
 
     public final ControlledKnobBuilder decimals( final int decimals ) {
 
-        properties.put("decimals", decimals);
+        this.decimals = decimals;
+        present |= DECIMALS;
 
         return this;
 
@@ -274,7 +606,8 @@ public class ControlledKnobBuilder {
 
     public final ControlledKnobBuilder dragDisabled( final boolean value ) {
 
-        properties.put("dragDisabled", value);
+        this.dragDisabled = value;
+        present |= DRAG_DISABLED;
 
         return this;
 
@@ -282,7 +615,8 @@ public class ControlledKnobBuilder {
 
     public final ControlledKnobBuilder extremaVisible( final boolean value ) {
 
-        properties.put("extremaVisible", value);
+        this.extremaVisible = value;
+        present |= EXTREMA_VISIBLE;
 
         return this;
 
@@ -290,7 +624,8 @@ public class ControlledKnobBuilder {
 
     public final ControlledKnobBuilder fineIncrement( final double value ) {
 
-        properties.put("fineIncrement", value);
+        this.fineIncrement = value;
+        present |= FINE_INCREMENT;
 
         return this;
 
@@ -302,15 +637,17 @@ public class ControlledKnobBuilder {
 
     public final ControlledKnobBuilder gradientStops( final List<Stop> stops ) {
 
-        properties.put("gradientStops", stops);
+        this.gradientStops = copyOf(stops);
+        present |= GRADIENT_STOPS;
 
         return this;
 
     }
 
-    public final ControlledKnobBuilder id( final String unit ) {
+    public final ControlledKnobBuilder id( final String id ) {
 
-        properties.put("id", unit);
+        this.id = id;
+        present |= ID;
 
         return this;
 
@@ -318,7 +655,8 @@ public class ControlledKnobBuilder {
 
     public final ControlledKnobBuilder indicatorColor( final Color color ) {
 
-        properties.put("indicatorColor", color);
+        this.indicatorColor = color;
+        present |= INDICATOR_COLOR;
 
         return this;
 
@@ -326,7 +664,8 @@ public class ControlledKnobBuilder {
 
     public final ControlledKnobBuilder layoutX( final double scale ) {
 
-        properties.put("layoutX", scale);
+        this.layoutX = scale;
+        present |= LAYOUT_X;
 
         return this;
 
@@ -334,7 +673,8 @@ public class ControlledKnobBuilder {
 
     public final ControlledKnobBuilder layoutY( final double scale ) {
 
-        properties.put("layoutY", scale);
+        this.layoutY = scale;
+        present |= LAYOUT_Y;
 
         return this;
 
@@ -342,7 +682,8 @@ public class ControlledKnobBuilder {
 
     public final ControlledKnobBuilder maxHeight( final double height ) {
 
-        properties.put("maxHeight", height);
+        this.maxHeight = height;
+        present |= MAX_HEIGHT;
 
         return this;
 
@@ -350,7 +691,9 @@ public class ControlledKnobBuilder {
 
     public final ControlledKnobBuilder maxSize( final double width, final double height ) {
 
-        properties.put("maxSize", new Dimension2D(width, height));
+        this.maxSizeWidth = width;
+        this.maxSizeHeight = height;
+        present |= MAX_SIZE;
 
         return this;
 
@@ -358,7 +701,8 @@ public class ControlledKnobBuilder {
 
     public final ControlledKnobBuilder maxValue( final double value ) {
 
-        properties.put("maxValue", value);
+        this.maxValue = value;
+        present |= MAX_VALUE;
 
         return this;
 
@@ -366,7 +710,8 @@ public class ControlledKnobBuilder {
 
     public final ControlledKnobBuilder maxWidth( final double width ) {
 
-        properties.put("maxWidth", width);
+        this.maxWidth = width;
+        present |= MAX_WIDTH;
 
         return this;
 
@@ -374,7 +719,8 @@ public class ControlledKnobBuilder {
 
     public final ControlledKnobBuilder minHeight( final double height ) {
 
-        properties.put("minHeight", height);
+        this.minHeight = height;
+        present |= MIN_HEIGHT;
 
         return this;
 
@@ -382,7 +728,9 @@ public class ControlledKnobBuilder {
 
     public final ControlledKnobBuilder minSize( final double width, final double height ) {
 
-        properties.put("minSize", new Dimension2D(width, height));
+        this.minSizeWidth = width;
+        this.minSizeHeight = height;
+        present |= MIN_SIZE;
 
         return this;
 
@@ -390,7 +738,8 @@ public class ControlledKnobBuilder {
 
     public final ControlledKnobBuilder minValue( final double value ) {
 
-        properties.put("minValue", value);
+        this.minValue = value;
+        present |= MIN_VALUE;
 
         return this;
 
@@ -398,7 +747,8 @@ public class ControlledKnobBuilder {
 
     public final ControlledKnobBuilder minWidth( final double width ) {
 
-        properties.put("minWidth", width);
+        this.minWidth = width;
+        present |= MIN_WIDTH;
 
         return this;
 
@@ -406,7 +756,8 @@ public class ControlledKnobBuilder {
 
     public final ControlledKnobBuilder onAdjusted( final EventHandler<KnobEvent> handler ) {
 
-        properties.put("onAdjusted", handler);
+        this.onAdjusted = handler;
+        present |= ON_ADJUSTED;
 
         return this;
 
@@ -414,7 +765,8 @@ public class ControlledKnobBuilder {
 
     public final ControlledKnobBuilder onAdjusting( final EventHandler<KnobEvent> handler ) {
 
-        properties.put("onAdjusting", handler);
+        this.onAdjusting = handler;
+        present |= ON_ADJUSTING;
 
         return this;
 
@@ -422,7 +774,8 @@ public class ControlledKnobBuilder {
 
     public final ControlledKnobBuilder onTargetSet( final EventHandler<KnobEvent> handler ) {
 
-        properties.put("onTargetSet", handler);
+        this.onTargetSet = handler;
+        present |= ON_TARGET_SET;
 
         return this;
 
@@ -430,7 +783,8 @@ public class ControlledKnobBuilder {
 
     public final ControlledKnobBuilder opacity( final double opacity ) {
 
-        properties.put("opacity", opacity);
+        this.opacity = opacity;
+        present |= OPACITY;
 
         return this;
 
@@ -438,7 +792,8 @@ public class ControlledKnobBuilder {
 
     public final ControlledKnobBuilder operatingMode( final Controllable.OperatingMode operatingMode ) {
 
-        properties.put("operatingMode", operatingMode);
+        this.operatingMode = operatingMode;
+        present |= OPERATING_MODE;
 
         return this;
 
@@ -454,7 +809,8 @@ public class ControlledKnobBuilder {
 
     public final ControlledKnobBuilder padding( final Insets insets ) {
 
-        properties.put("padding", insets);
+        this.padding = insets;
+        present |= PADDING;
 
         return this;
 
@@ -462,7 +818,8 @@ public class ControlledKnobBuilder {
 
     public final ControlledKnobBuilder prefHeight( final double height ) {
 
-        properties.put("prefHeight", height);
+        this.prefHeight = height;
+        present |= PREF_HEIGHT;
 
         return this;
 
@@ -470,7 +827,9 @@ public class ControlledKnobBuilder {
 
     public final ControlledKnobBuilder prefSize( final double width, final double height ) {
 
-        properties.put("prefSize", new Dimension2D(width, height));
+        this.prefSizeWidth = width;
+        this.prefSizeHeight = height;
+        present |= PREF_SIZE;
 
         return this;
 
@@ -478,7 +837,17 @@ public class ControlledKnobBuilder {
 
     public final ControlledKnobBuilder prefWidth( final double width ) {
 
-        properties.put("prefWidth", width);
+        this.prefWidth = width;
+        present |= PREF_WIDTH;
+
+        return this;
+
+    }
+
+    public final ControlledKnobBuilder renderingMode( final RenderingMode renderingMode ) {
+
+        this.renderingMode = renderingMode;
+        present |= RENDERING_MODE;
 
         return this;
 
@@ -486,7 +855,8 @@ public class ControlledKnobBuilder {
 
     public final ControlledKnobBuilder scaleX( final double scale ) {
 
-        properties.put("scaleX", scale);
+        this.scaleX = scale;
+        present |= SCALE_X;
 
         return this;
 
@@ -494,7 +864,8 @@ public class ControlledKnobBuilder {
 
     public final ControlledKnobBuilder scaleY( final double scale ) {
 
-        properties.put("scaleY", scale);
+        this.scaleY = scale;
+        present |= SCALE_Y;
 
         return this;
 
@@ -502,7 +873,8 @@ public class ControlledKnobBuilder {
 
     public final ControlledKnobBuilder selected( final boolean value ) {
 
-        properties.put("selected", value);
+        this.selected = value;
+        present |= SELECTED;
 
         return this;
 
@@ -510,7 +882,8 @@ public class ControlledKnobBuilder {
 
     public final ControlledKnobBuilder selectionColor( final Color color ) {
 
-        properties.put("selectionColor", color);
+        this.selectionColor = color;
+        present |= SELECTION_COLOR;
 
         return this;
 
@@ -518,7 +891,26 @@ public class ControlledKnobBuilder {
 
     public final ControlledKnobBuilder tagColor( final Color color ) {
 
-        properties.put("tagColor", color);
+        this.tagColor = color;
+        present |= TAG_COLOR;
+
+        return this;
+
+    }
+
+    public final ControlledKnobBuilder targetSink( final TargetSink sink ) {
+
+        this.targetSink = sink;
+        present |= TARGET_SINK;
+
+        return this;
+
+    }
+
+    public final ControlledKnobBuilder targetThrottle( final TargetThrottle throttle ) {
+
+        this.targetThrottle = throttle;
+        present |= TARGET_THROTTLE;
 
         return this;
 
@@ -526,7 +918,8 @@ public class ControlledKnobBuilder {
 
     public final ControlledKnobBuilder targetValue( final double value ) {
 
-        properties.put("targetValue", value);
+        this.targetValue = value;
+        present |= TARGET_VALUE;
 
         return this;
 
@@ -534,7 +927,8 @@ public class ControlledKnobBuilder {
 
     public final ControlledKnobBuilder targetValueAlwaysVisible( final boolean value ) {
 
-        properties.put("targetValueAlwaysVisible", value);
+        this.targetValueAlwaysVisible = value;
+        present |= TARGET_VALUE_ALWAYS_VISIBLE;
 
         return this;
 
@@ -542,7 +936,8 @@ public class ControlledKnobBuilder {
 
     public final ControlledKnobBuilder textColor( final Color color ) {
 
-        properties.put("textColor", color);
+        this.textColor = color;
+        present |= TEXT_COLOR;
 
         return this;
 
@@ -550,7 +945,8 @@ public class ControlledKnobBuilder {
 
     public final ControlledKnobBuilder translateX( final double scale ) {
 
-        properties.put("translateX", scale);
+        this.translateX = scale;
+        present |= TRANSLATE_X;
 
         return this;
 
@@ -558,7 +954,8 @@ public class ControlledKnobBuilder {
 
     public final ControlledKnobBuilder translateY( final double scale ) {
 
-        properties.put("translateY", scale);
+        this.translateY = scale;
+        present |= TRANSLATE_Y;
 
         return this;
 
@@ -566,7 +963,8 @@ public class ControlledKnobBuilder {
 
     public final ControlledKnobBuilder unit( final String unit ) {
 
-        properties.put("unit", unit);
+        this.unit = unit;
+        present |= UNIT;
 
         return this;
 
@@ -574,7 +972,8 @@ public class ControlledKnobBuilder {
 
     public final ControlledKnobBuilder zeroDetentEnabled( final boolean value ) {
 
-        properties.put("zeroDetentEnabled", value);
+        this.zeroDetentEnabled = value;
+        present |= ZERO_DETENT_ENABLED;
 
         return this;
 
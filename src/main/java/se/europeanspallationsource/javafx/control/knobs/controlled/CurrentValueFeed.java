@@ -0,0 +1,315 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2017 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.javafx.control.knobs.controlled;
+
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.property.ReadOnlyDoubleWrapper;
+
+
+/**
+ * Feeds the current value of a {@link ControlledKnob} from a high-rate
+ * source (e.g. a control system value updating at kHz rates):
+ * <pre>
+ * CurrentValueFeed feed = new CurrentValueFeed(knob);
+ *
+ * feed.setEnvelopeEnabled(true);
+ * feed.setControllerRate(20);
+ *
+ * //  From any thread:
+ * feed.offer(value);
+ * </pre>
+ * Values are offered from any thread into a lock-free single-slot buffer,
+ * and published to the knob, on the JavaFX thread, at most once per pulse:
+ * only the last value offered in the meantime is published. The knob's
+ * controller is then forwarded the published values at most
+ * {@link #getControllerRate()} times per second.
+ * <P>
+ * When the envelope is enabled, the minimum and maximum values offered
+ * between two publications are published too, as
+ * {@link #envelopeMinProperty()} and {@link #envelopeMaxProperty()}.
+ *
+ * @author Claudio Rosati, European Spallation Source ERIC
+ * @version 1.0.0 18 Oct 2026
+ */
+@SuppressWarnings( "ClassWithoutLogger" )
+public class CurrentValueFeed {
+
+    private final ControlledKnob knob;
+    private volatile boolean envelopeEnabled = false;
+    private final AtomicLong offered = new AtomicLong();
+    private final AtomicLong published = new AtomicLong();
+
+    /**
+     * The value waiting to be published, with its envelope, or {@code null}.
+     * Used when the envelope is enabled.
+     */
+    private final AtomicReference<Sample> slot = new AtomicReference<>();
+
+    /**
+     * The bits of the value waiting to be published when the envelope is not
+     * enabled, valid when {@link #valuePending} is {@code true}. Using them
+     * instead of {@link #slot} makes offering a value allocation free.
+     */
+    private final AtomicLong valueBits = new AtomicLong();
+    private final AtomicBoolean valuePending = new AtomicBoolean(false);
+
+    /**
+     * {@code true} while the {@link #pulse} timer is started (or about to
+     * be). It is stopped at the first pulse with nothing to be published.
+     */
+    private final AtomicBoolean publishing = new AtomicBoolean(false);
+    private final AnimationTimer pulse = new AnimationTimer() {
+        @Override
+        public void handle( long now ) {
+            publish();
+        }
+    };
+
+    /**
+     * Create a feed for the current value of the given knob.
+     *
+     * @param knob The knob whose current value will be fed.
+     */
+    public CurrentValueFeed( ControlledKnob knob ) {
+
+        if ( knob == null ) {
+            throw new NullPointerException("Null knob.");
+        }
+
+        this.knob = knob;
+
+    }
+
+    /*
+     * ---- envelopeMax --------------------------------------------------------
+     */
+    private final ReadOnlyDoubleWrapper envelopeMax = new ReadOnlyDoubleWrapper(this, "envelopeMax", Double.NaN);
+
+    /**
+     * @return The maximum value offered since the previous publication, or
+     *         {@link Double#NaN} if the envelope is not enabled.
+     */
+    public ReadOnlyDoubleProperty envelopeMaxProperty() {
+        return envelopeMax.getReadOnlyProperty();
+    }
+
+    public double getEnvelopeMax() {
+        return envelopeMax.get();
+    }
+
+    /*
+     * ---- envelopeMin --------------------------------------------------------
+     */
+    private final ReadOnlyDoubleWrapper envelopeMin = new ReadOnlyDoubleWrapper(this, "envelopeMin", Double.NaN);
+
+    /**
+     * @return The minimum value offered since the previous publication, or
+     *         {@link Double#NaN} if the envelope is not enabled.
+     */
+    public ReadOnlyDoubleProperty envelopeMinProperty() {
+        return envelopeMin.getReadOnlyProperty();
+    }
+
+    public double getEnvelopeMin() {
+        return envelopeMin.get();
+    }
+
+    /*
+     * -------------------------------------------------------------------------
+     */
+
+    /**
+     * Discard the value waiting to be published, if any, and stop the pulse
+     * timer. Must be called on the JavaFX thread.
+     */
+    public void dispose() {
+        slot.set(null);
+        pulse.stop();
+        publishing.set(false);
+    }
+
+    /**
+     * Must be called on the JavaFX thread.
+     *
+     * @return The maximum number of current value changes per second
+     *         forwarded to the knob's controller, or {@code 0} for no limit.
+     */
+    public double getControllerRate() {
+        return knob.getCurrentValueForwardingRate();
+    }
+
+    /**
+     * Must be called on the JavaFX thread.
+     *
+     * @param rate The maximum number of current value changes per second
+     *             forwarded to the knob's controller, or {@code 0} for no
+     *             limit.
+     */
+    public void setControllerRate( double rate ) {
+        knob.setCurrentValueForwardingRate(rate);
+    }
+
+    /**
+     * @return The fed knob.
+     */
+    public ControlledKnob getKnob() {
+        return knob;
+    }
+
+    /**
+     * @return The number of values offered to this feed.
+     */
+    public long getOffered() {
+        return offered.get();
+    }
+
+    /**
+     * @return The number of values published to the knob.
+     */
+    public long getPublished() {
+        return published.get();
+    }
+
+    /**
+     * @return {@code true} if the minimum and maximum values offered between
+     *         two publications are published too.
+     */
+    public boolean isEnvelopeEnabled() {
+        return envelopeEnabled;
+    }
+
+    /**
+     * @param envelopeEnabled {@code true} if the minimum and maximum values
+     *                        offered between two publications must be
+     *                        published too.
+     */
+    public void setEnvelopeEnabled( boolean envelopeEnabled ) {
+        this.envelopeEnabled = envelopeEnabled;
+    }
+
+    /**
+     * Offer a new current value. Can be called by any thread, and never
+     * blocks.
+     *
+     * @param value The new current value.
+     */
+    public void offer( double value ) {
+
+        boolean first;
+
+        if ( envelopeEnabled ) {
+
+            Sample current;
+            Sample merged;
+
+            do {
+                current = slot.get();
+                merged = ( current == null ) ? new Sample(value, value, value) : current.merge(value);
+            } while ( !slot.compareAndSet(current, merged) );
+
+            first = ( current == null );
+
+        } else {
+            //  The value must be set before the flag, read in reverse order.
+            valueBits.set(Double.doubleToRawLongBits(value));
+            first = !valuePending.getAndSet(true);
+        }
+
+        offered.incrementAndGet();
+
+        if ( first && publishing.compareAndSet(false, true) ) {
+            Platform.runLater(pulse::start);
+        }
+
+    }
+
+    /**
+     * Publish the last offered value, if any, otherwise stop the
+     * {@link #pulse} timer. Called on the JavaFX thread.
+     */
+    private void publish() {
+
+        Sample sample = slot.getAndSet(null);
+        boolean pending = valuePending.getAndSet(false);
+
+        if ( sample == null && !pending ) {
+
+            pulse.stop();
+            publishing.set(false);
+
+            //  A value offered meanwhile could have found the timer running.
+            if ( ( slot.get() != null || valuePending.get() ) && publishing.compareAndSet(false, true) ) {
+                pulse.start();
+            }
+
+            return;
+
+        }
+
+        //  Both are present only if the envelope was enabled or disabled
+        //  since the previous publication: the value offered according to
+        //  the current setting is the most recent one.
+        boolean envelope = envelopeEnabled;
+
+        if ( pending && !envelope ) {
+            sample = null;
+        }
+
+        if ( envelope && sample != null ) {
+            envelopeMin.set(sample.min);
+            envelopeMax.set(sample.max);
+        } else if ( !Double.isNaN(envelopeMin.get()) ) {
+            envelopeMin.set(Double.NaN);
+            envelopeMax.set(Double.NaN);
+        }
+
+        double value = ( sample != null ) ? sample.value : Double.longBitsToDouble(valueBits.get());
+
+        knob.setCurrentValue(value);
+        published.incrementAndGet();
+
+    }
+
+    /**
+     * The last offered value, with the envelope of the values offered since
+     * the previous publication.
+     */
+    private static final class Sample {
+
+        final double max;
+        final double min;
+        final double value;
+
+        Sample( double value, double min, double max ) {
+            this.value = value;
+            this.min = min;
+            this.max = max;
+        }
+
+        Sample merge( double newValue ) {
+            return new Sample(newValue, Math.min(min, newValue), Math.max(max, newValue));
+        }
+
+    }
+
+}
@@ -0,0 +1,42 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2017 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.javafx.control.knobs.controlled;
+
+
+/**
+ * How a {@link ControlledKnob} is rendered.
+ *
+ * @author Claudio Rosati, European Spallation Source ERIC
+ * @version 1.0.0 18 Oct 2026
+ */
+public enum RenderingMode {
+
+    /**
+     * The knob is rendered by its own nodes (the default).
+     */
+    SCENE_GRAPH,
+
+    /**
+     * The knob is drawn on a single canvas, redrawn at most once per pulse
+     * and only when something changed. Meant for panels with hundreds of
+     * knobs operated through their controllers: the knob's own nodes are
+     * removed from the scene graph, and the canvas handles the mouse
+     * interaction (dragging, clicking and scrolling).
+     */
+    CANVAS
+
+}
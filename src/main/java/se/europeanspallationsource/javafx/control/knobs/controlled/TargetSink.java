@@ -0,0 +1,83 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2017 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.javafx.control.knobs.controlled;
+
+
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+
+
+/**
+ * The service writing downstream (e.g. into a control system) the target
+ * values set on {@link ControlledKnob}s, as an alternative to handling each
+ * {@code onTargetSet} event:
+ * <pre>
+ * TargetSink sink = targets -&gt; channelAccess.putAll(targets);
+ *
+ * knob1.setTargetSink(sink);
+ * knob2.setTargetSink(sink);
+ * knob2.setTargetThrottle(TargetThrottle.LEADING_AND_TRAILING);
+ * </pre>
+ * Target values are throttled for each knob according to its
+ * {@link ControlledKnob#getTargetThrottle()} policy, and the ones of all the
+ * knobs sharing the same sink are written in batch, with at most one
+ * {@link #write(Map)} call every {@link #getInterval()} milliseconds.
+ * <P>
+ * No more than {@link #getMaxInFlight()} writes can be in progress at the
+ * same time: while a slow sink is writing, further target values replace
+ * the ones still waiting for the same knob, so that no backlog builds up.
+ *
+ * @author Claudio Rosati, European Spallation Source ERIC
+ * @version 1.0.0 18 Oct 2026
+ */
+@FunctionalInterface
+public interface TargetSink {
+
+    /**
+     * Write downstream the given target values. Called on a background
+     * thread shared by all sinks: implementations should not block, and
+     * perform the write asynchronously instead.
+     *
+     * @param targets The target values to be written, by knob, in the order
+     *                they were set.
+     * @return A stage completed when the write is done, successfully or not.
+     *         {@code null} means the write is already done.
+     */
+    public CompletionStage<?> write( Map<ControlledKnob, Double> targets );
+
+    /**
+     * This default implementation returns {@code 100}.
+     *
+     * @return The minimum time, in milliseconds, between two
+     *         {@link #write(Map)} calls, and the length of the throttling
+     *         windows.
+     */
+    public default long getInterval() {
+        return 100L;
+    }
+
+    /**
+     * This default implementation returns {@code 1}.
+     *
+     * @return The maximum number of {@link #write(Map)} calls in progress at
+     *         the same time.
+     */
+    public default int getMaxInFlight() {
+        return 1;
+    }
+
+}
@@ -0,0 +1,321 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2017 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.javafx.control.knobs.controlled;
+
+
+import java.text.MessageFormat;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * Throttles and batches the target values written into a {@link TargetSink}
+ * by all the knobs sharing it. Dispatchers are shared by reference counting:
+ * see {@link #acquire(TargetSink)} and {@link #release()}.
+ *
+ * @author Claudio Rosati, European Spallation Source ERIC
+ * @version 1.0.0 18 Oct 2026
+ */
+final class TargetSinkDispatcher {
+
+    private static final Logger LOGGER = Logger.getLogger(TargetSinkDispatcher.class.getName());
+
+    /**
+     * The thread calling {@link TargetSink#write(Map)} for all dispatchers.
+     */
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+
+        Thread thread = new Thread(r, "Target sink dispatcher");
+
+        thread.setDaemon(true);
+
+        return thread;
+
+    });
+
+    private static final Map<TargetSink, TargetSinkDispatcher> DISPATCHERS = new IdentityHashMap<>(4);  //  Guarded by DISPATCHERS.
+
+    /**
+     * Get the dispatcher of the given sink, creating it if needed, and
+     * increment its reference count.
+     *
+     * @param sink The target sink.
+     * @return The dispatcher of the given sink.
+     */
+    static TargetSinkDispatcher acquire( TargetSink sink ) {
+        synchronized ( DISPATCHERS ) {
+
+            TargetSinkDispatcher dispatcher = DISPATCHERS.computeIfAbsent(sink, TargetSinkDispatcher::new);
+
+            dispatcher.references++;
+
+            return dispatcher;
+
+        }
+    }
+
+    private final Map<ControlledKnob, Entry> entries = new LinkedHashMap<>(16);  //  Guarded by this.
+    private ScheduledFuture<?> flush = null;                                    //  Guarded by this.
+    private long flushTime;                                                     //  Guarded by this.
+    private int inFlight = 0;                                                   //  Guarded by this.
+    private final long interval;
+    private long lastWriteTime;                                                 //  Guarded by this.
+    private final int maxInFlight;
+    private int references = 0;                                                 //  Guarded by DISPATCHERS.
+    private final TargetSink sink;
+
+    private TargetSinkDispatcher( TargetSink sink ) {
+
+        this.sink = sink;
+        this.interval = TimeUnit.MILLISECONDS.toNanos(Math.max(0L, sink.getInterval()));
+        this.maxInFlight = Math.max(1, sink.getMaxInFlight());
+        this.lastWriteTime = System.nanoTime() - interval;
+
+    }
+
+    /**
+     * Decrement the reference count of this dispatcher, discarding it when no
+     * longer used.
+     */
+    void release() {
+        synchronized ( DISPATCHERS ) {
+            if ( --references <= 0 ) {
+
+                DISPATCHERS.remove(sink);
+
+                synchronized ( this ) {
+
+                    entries.clear();
+
+                    if ( flush != null ) {
+                        flush.cancel(false);
+                        flush = null;
+                    }
+
+                }
+
+            }
+        }
+    }
+
+    /**
+     * @return The number of knobs whose throttling state is still kept.
+     */
+    synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Discard the target value still waiting to be written for the given
+     * knob, that no longer uses this dispatcher.
+     *
+     * @param knob The knob to be forgotten.
+     */
+    synchronized void remove( ControlledKnob knob ) {
+        entries.remove(knob);
+    }
+
+    /**
+     * Throttle the given target value, and schedule its writing.
+     *
+     * @param knob     The knob whose target value was set.
+     * @param value    The new target value.
+     * @param throttle The throttle policy of the knob.
+     */
+    synchronized void targetSet( ControlledKnob knob, double value, TargetThrottle throttle ) {
+
+        long now = System.nanoTime();
+        Entry entry = entries.computeIfAbsent(knob, k -> new Entry(now));
+
+        if ( entry.pending != null ) {
+
+            //  Not yet written (the sink is slow or busy): replaced by the
+            //  newer value, keeping its due time.
+            if ( throttle != TargetThrottle.LEADING ) {
+                entry.pending = value;
+            }
+
+        } else if ( now - entry.windowEnd >= 0L ) {
+
+            //  New window.
+            entry.windowEnd = now + interval;
+            entry.pending = value;
+            entry.trailing = ( throttle == TargetThrottle.TRAILING );
+            entry.dueTime = entry.trailing ? entry.windowEnd : now;
+
+        } else if ( throttle != TargetThrottle.LEADING ) {
+            entry.pending = value;
+            entry.trailing = true;
+            entry.dueTime = entry.windowEnd;
+        }
+
+        scheduleFlush(now);
+
+    }
+
+    /**
+     * Write all the target values due, then schedule the next write. Called
+     * by {@link #SCHEDULER}.
+     */
+    private void flush() {
+
+        Map<ControlledKnob, Double> targets;
+
+        synchronized ( this ) {
+
+            flush = null;
+
+            if ( inFlight >= maxInFlight ) {
+                return;
+            }
+
+            long now = System.nanoTime();
+
+            targets = new LinkedHashMap<>(entries.size());
+
+            for ( Iterator<Map.Entry<ControlledKnob, Entry>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+
+                Map.Entry<ControlledKnob, Entry> e = it.next();
+                Entry entry = e.getValue();
+
+                if ( entry.pending != null && now - entry.dueTime >= 0L ) {
+
+                    targets.put(e.getKey(), entry.pending);
+
+                    if ( entry.trailing ) {
+                        //  Like a leading write, a trailing one opens a new window.
+                        entry.windowEnd = now + interval;
+                    }
+
+                    entry.pending = null;
+                    entry.trailing = false;
+
+                } else if ( entry.pending == null && now - entry.windowEnd >= 0L ) {
+                    it.remove();
+                }
+
+            }
+
+            if ( targets.isEmpty() ) {
+                scheduleFlush(now);
+                return;
+            }
+
+            inFlight++;
+            lastWriteTime = now;
+
+        }
+
+        CompletionStage<?> stage = null;
+
+        try {
+            stage = sink.write(Collections.unmodifiableMap(targets));
+        } catch ( RuntimeException ex ) {
+            LOGGER.log(Level.WARNING, "Unable to write target values.", ex);
+        }
+
+        if ( stage == null ) {
+            writeCompleted(null);
+        } else {
+            stage.whenComplete(( result, error ) -> writeCompleted(error));
+        }
+
+    }
+
+    /**
+     * Schedule the flush of the earliest target value due, no earlier than
+     * {@link #interval} after the last write, unless an earlier flush is
+     * already scheduled. Must be called holding the lock of this dispatcher.
+     * <p>
+     * Entries without a pending value are flushed at the end of their window,
+     * so that they are removed and their knob is no longer referenced.</p>
+     */
+    private void scheduleFlush( long now ) {
+
+        if ( inFlight >= maxInFlight ) {
+            return;
+        }
+
+        long due = Long.MAX_VALUE;
+
+        for ( Entry entry : entries.values() ) {
+
+            long time = ( entry.pending != null ) ? entry.dueTime : entry.windowEnd;
+
+            if ( due == Long.MAX_VALUE || time - due < 0L ) {
+                due = time;
+            }
+
+        }
+
+        if ( due != Long.MAX_VALUE ) {
+
+            long delay = Math.max(Math.max(due - now, lastWriteTime + interval - now), 0L);
+
+            if ( flush != null ) {
+                if ( flushTime - ( now + delay ) <= 0L ) {
+                    return;
+                }
+                flush.cancel(false);
+            }
+
+            flush = SCHEDULER.schedule(this::flush, delay, TimeUnit.NANOSECONDS);
+            flushTime = now + delay;
+
+        }
+
+    }
+
+    private synchronized void writeCompleted( Throwable error ) {
+
+        if ( error != null ) {
+            LOGGER.warning(MessageFormat.format("Unable to write target values [{0}].", error.getMessage()));
+        }
+
+        inFlight--;
+
+        scheduleFlush(System.nanoTime());
+
+    }
+
+    /**
+     * The throttling state of a knob.
+     */
+    private static final class Entry {
+
+        long dueTime;
+        Double pending = null;
+        boolean trailing = false;
+        long windowEnd;
+
+        Entry( long now ) {
+            windowEnd = now;
+        }
+
+    }
+
+}
@@ -0,0 +1,49 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2017 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.javafx.control.knobs.controlled;
+
+
+/**
+ * How the target values set on a {@link ControlledKnob} are throttled
+ * before being written into its {@link TargetSink}. Target values are
+ * throttled in windows of {@link TargetSink#getInterval()} milliseconds,
+ * starting when a target value is set outside a window.
+ *
+ * @author Claudio Rosati, European Spallation Source ERIC
+ * @version 1.0.0 18 Oct 2026
+ */
+public enum TargetThrottle {
+
+    /**
+     * The first target value set in a window is written as soon as possible,
+     * the following ones are discarded. The last value set can be lost.
+     */
+    LEADING,
+
+    /**
+     * The last target value set in a window is written when the window
+     * ends.
+     */
+    TRAILING,
+
+    /**
+     * The first target value set in a window is written as soon as possible,
+     * and the last one, if any, when the window ends.
+     */
+    LEADING_AND_TRAILING
+
+}
@@ -17,14 +17,34 @@
 package se.europeanspallationsource.javafx.control.knobs.controller;
 
 
+import java.lang.management.ManagementFactory;
+import java.text.MessageFormat;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.Executor;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.DoubleConsumer;
+import java.util.function.UnaryOperator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javafx.animation.AnimationTimer;
 import javafx.application.Platform;
 import javafx.beans.value.ChangeListener;
 import javafx.scene.paint.Color;
@@ -39,32 +59,114 @@ import se.europeanspallationsource.javafx.control.knobs.controller.spi.Controlle
  */
 public abstract class AbstractController implements Controller {
 
-    private static final Executor EXECUTOR = Executors.newFixedThreadPool(8);
+    private static final ThreadPoolExecutor EXECUTOR = (ThreadPoolExecutor) Executors.newFixedThreadPool(8);
+    private static final Logger LOGGER = Logger.getLogger(AbstractController.class.getName());
 
-    private final Map<Controllable, AbstractControllableWrapper> controllableMap = Collections.synchronizedMap(new HashMap<>(16));
+    /**
+     * The thread running the delayed tasks of all controllers.
+     */
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+
+        Thread thread = new Thread(r, "Controllers scheduler");
+
+        thread.setDaemon(true);
+
+        return thread;
+
+    });
+
+    /**
+     * Maximum number of changes handled by a wrapper's mailbox before giving
+     * the executor thread back to the other wrappers.
+     */
+    private static final int MAILBOX_BATCH = 16;
+
+    private volatile AccelerationCurve accelerationCurve = AccelerationCurve.DEFAULT;
     private final String identifier;
+    private final ControllerMetrics metrics;
+    private ObjectName metricsName = null;          //  Guarded by metrics.
+    private boolean metricsRegistered = false;      //  Guarded by metrics.
+
+    /*
+     * The wrappers, by controllable. The registry is an immutable snapshot,
+     * atomically replaced by add/remove, so that any thread can read and
+     * iterate it without locking.
+     */
+    private final AtomicReference<Registry> registry = new AtomicReference<>(Registry.EMPTY);
+
+    /*
+     * Wrappers having changes to be applied on the JavaFX thread. They are
+     * applied in batch once per pulse by the fxPulse timer, started by a
+     * Platform.runLater(...) call when the first wrapper is queued, and
+     * stopped at the first pulse with nothing to be applied.
+     */
+    private final ConcurrentLinkedQueue<AbstractControllableWrapper> fxUpdates = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean fxPulseRunning = new AtomicBoolean(false);
+    private AnimationTimer fxPulse = null;  //  Accessed on the JavaFX thread only.
 
     /**
-     * Create a new instance of this abstract controller.
+     * Create a new instance of this abstract controller. Its metrics MBean is
+     * registered when the controller is first used (see
+     * {@link #registerMetrics()}), so that no reference to a partially
+     * constructed controller escapes.
      *
      * @param identifier The controller's unique identifier.
      */
     public AbstractController( String identifier ) {
         this.identifier = identifier;
+        this.metrics = new ControllerMetrics(identifier, () -> registry.get().map.size(), () -> EXECUTOR.getQueue().size());
     }
 
     @Override
     public void add( Controllable controllable ) {
-        controllableMap.put(controllable, createWrapper(controllable));
+
+        registerMetrics();
+
+        //  A controllable added again must have its old wrapper disposed
+        //  before the new one is created, otherwise the old one would reset
+        //  the channel just set up by the new one.
+        unregister(controllable);
+
+        AbstractControllableWrapper wrapper = createWrapper(controllable);
+        Registry current;
+
+        do {
+            current = registry.get();
+        } while ( !registry.compareAndSet(current, current.with(controllable, wrapper)) );
+
+        AbstractControllableWrapper replaced = current.map.get(controllable);
+
+        if ( replaced != null ) {
+            //  Added concurrently by another thread.
+            replaced.dispose();
+        }
+
     }
 
     @Override
     public void dispose() {
 
-        Set<Controllable> controllables = new HashSet<>(getControllables());
+        registry.get().controllables.forEach(this::remove);
+
+        unregisterMetrics();
+
+    }
 
-        controllables.stream().forEach(c -> remove(c));
+    /**
+     * @return The curve amplifying the coarse increments when the physical
+     *         device is operated fast.
+     */
+    public AccelerationCurve getAccelerationCurve() {
+        return accelerationCurve;
+    }
 
+    /**
+     * @param accelerationCurve The curve amplifying the coarse increments
+     *                          when the physical device is operated fast, or
+     *                          {@code null} for {@link AccelerationCurve#DEFAULT}.
+     */
+    public void setAccelerationCurve( AccelerationCurve accelerationCurve ) {
+        this.accelerationCurve = ( accelerationCurve == null ) ? AccelerationCurve.DEFAULT : accelerationCurve;
     }
 
     @Override
@@ -74,7 +176,34 @@ public abstract class AbstractController implements Controller {
 
     @Override
     public void remove( Controllable controllable ) {
-        controllableMap.remove(controllable).dispose();
+        unregister(controllable);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> resetAsync( DoubleConsumer progressListener ) {
+
+        registerMetrics();
+
+        CompletableFuture<Boolean> handle = new CompletableFuture<>();
+
+        EXECUTOR.execute(() -> {
+            if ( !handle.isDone() ) {
+                try {
+
+                    long start = System.nanoTime();
+                    boolean result = reset(handle, progressListener);
+
+                    metrics.resetPerformed(System.nanoTime() - start);
+                    handle.complete(result);
+
+                } catch ( RuntimeException ex ) {
+                    handle.completeExceptionally(ex);
+                }
+            }
+        });
+
+        return handle;
+
     }
 
     /**
@@ -86,12 +215,203 @@ public abstract class AbstractController implements Controller {
      */
     protected abstract AbstractControllableWrapper createWrapper( Controllable controllable );
 
+    /**
+     * Put the controller in its initial, well-known state. Called by
+     * {@link #resetAsync(DoubleConsumer)} from a background thread.
+     * <P>
+     * This default implementation calls {@link #reset()}.
+     *
+     * @param handle           The future returned to the caller. Long
+     *                         operations should stop as soon as it is
+     *                         cancelled.
+     * @param progressListener If not {@code null}, it must be notified of the
+     *                         reset progress, in the [0, 1] range.
+     * @return {@code true} on success.
+     */
+    protected boolean reset( Future<Boolean> handle, DoubleConsumer progressListener ) {
+
+        boolean result = reset();
+
+        if ( progressListener != null ) {
+            progressListener.accept(1.0);
+        }
+
+        return result;
+
+    }
+
+    /**
+     * Apply the changes of all the wrappers queued so far, otherwise stop the
+     * {@link #fxPulse} timer. Called on the JavaFX thread at each pulse.
+     */
+    private void applyFxUpdates() {
+
+        AbstractControllableWrapper wrapper = fxUpdates.poll();
+
+        if ( wrapper == null ) {
+
+            fxPulse.stop();
+            fxPulseRunning.set(false);
+
+            //  A wrapper queued meanwhile could have found the timer running.
+            if ( !fxUpdates.isEmpty() && fxPulseRunning.compareAndSet(false, true) ) {
+                fxPulse.start();
+            }
+
+            return;
+
+        }
+
+        do {
+            wrapper.applyFxUpdates();
+        } while ( ( wrapper = fxUpdates.poll() ) != null );
+
+    }
+
+    /**
+     * Queue the given wrapper to have its changes applied on the JavaFX
+     * thread at the next pulse.
+     *
+     * @param wrapper The wrapper with changes to be applied.
+     */
+    private void scheduleFxUpdate( AbstractControllableWrapper wrapper ) {
+
+        fxUpdates.offer(wrapper);
+
+        if ( fxPulseRunning.compareAndSet(false, true) ) {
+            metrics.fxPosted();
+            Platform.runLater(this::startFxPulse);
+        }
+
+    }
+
+    /**
+     * Start the {@link #fxPulse} timer, creating it the first time. Called on
+     * the JavaFX thread.
+     */
+    private void startFxPulse() {
+
+        if ( fxPulse == null ) {
+            fxPulse = new AnimationTimer() {
+                @Override
+                public void handle( long now ) {
+                    applyFxUpdates();
+                }
+            };
+        }
+
+        fxPulse.start();
+
+    }
+
+    /**
+     * Remove the given controllable from the registry, and dispose its
+     * wrapper, if any.
+     *
+     * @param controllable The controllable to be removed.
+     */
+    private void unregister( Controllable controllable ) {
+
+        Registry current;
+        Registry updated;
+
+        do {
+            current = registry.get();
+            updated = current.without(controllable);
+        } while ( updated != current && !registry.compareAndSet(current, updated) );
+
+        AbstractControllableWrapper removed = current.map.get(controllable);
+
+        if ( updated != current && removed != null ) {
+            removed.dispose();
+        }
+
+    }
+
+    /**
+     * Register {@link #metrics} into the platform MBean server, if not
+     * already done. Called when the controller is first used, i.e. by
+     * {@link #add(Controllable)} and {@link #resetAsync(DoubleConsumer)}:
+     * subclasses overriding the latter without always calling the super
+     * implementation must call this method themselves.
+     * <P>
+     * The metrics are registered only once: they are not registered again
+     * after {@link #dispose()}.
+     */
+    protected final void registerMetrics() {
+        synchronized ( metrics ) {
+            if ( !metricsRegistered ) {
+
+                metricsRegistered = true;
+
+                try {
+
+                    ObjectName name = new ObjectName(MessageFormat.format(
+                        "se.europeanspallationsource.javafx.control.knobs:type=Controller,name={0}",
+                        ObjectName.quote(identifier)
+                    ));
+
+                    ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, name);
+
+                    metricsName = name;
+
+                } catch ( JMException | RuntimeException ex ) {
+                    LOGGER.fine(MessageFormat.format(
+                        "Unable to register metrics MBean for controller \"{0}\" [{1}].",
+                        identifier,
+                        ex.getMessage()
+                    ));
+                }
+
+            }
+        }
+    }
+
+    private void unregisterMetrics() {
+        synchronized ( metrics ) {
+
+            //  No registration after dispose.
+            metricsRegistered = true;
+
+            if ( metricsName != null ) {
+                try {
+                    ManagementFactory.getPlatformMBeanServer().unregisterMBean(metricsName);
+                } catch ( JMException | RuntimeException ex ) {
+                    LOGGER.fine(MessageFormat.format(
+                        "Unable to unregister metrics MBean for controller \"{0}\" [{1}].",
+                        identifier,
+                        ex.getMessage()
+                    ));
+                } finally {
+                    metricsName = null;
+                }
+            }
+
+        }
+    }
+
+    /**
+     * @return An immutable snapshot of the attached controllables.
+     */
     protected Set<Controllable> getControllables() {
-        return Collections.unmodifiableSet(controllableMap.keySet());
+        return registry.get().controllables;
+    }
+
+    /**
+     * @return The counters describing the activity of this controller, also
+     *         available through JMX.
+     */
+    protected ControllerMetrics getMetrics() {
+        return metrics;
     }
 
+    /**
+     * @return An immutable snapshot of the wrappers of the attached
+     *         controllables, that can be iterated by any thread without
+     *         locking.
+     */
     protected Collection<AbstractControllableWrapper> getWrappers() {
-        return Collections.unmodifiableCollection(controllableMap.values());
+        return registry.get().wrappers;
     }
 
     @SuppressWarnings( "ProtectedInnerClass" )
@@ -108,17 +428,41 @@ public abstract class AbstractController implements Controller {
         }
 
 
+        /*
+         * ---- acceleration ---------------------------------------------------
+         */
+        private final ChangeListener<? super Number> accelerationListener = ( observable, oldValue, newValue ) -> {
+            updateState(s -> s.withAcceleration(newValue.doubleValue()));
+        };
+
+        public double getAcceleration() {
+            return state.get().getAcceleration();
+        }
+
+        /**
+         * Return the factor to be applied to the coarse increment, given the
+         * time elapsed since the previous detent in the same direction,
+         * according to the controller's {@link AccelerationCurve}.
+         *
+         * @param interval The time elapsed since the previous detent, in
+         *                 microseconds, or a negative value if unknown.
+         * @return The factor to be applied to the coarse increment.
+         */
+        protected double accelerationFactor( long interval ) {
+            return controller.getAccelerationCurve().factor(getAcceleration(), interval);
+        }
+
+
         /*
          * ---- channel --------------------------------------------------------
          */
-        private volatile int channel;
         private final ChangeListener<? super Number> channelListener = ( observable, oldValue, newValue ) -> {
-            channel = newValue.intValue();
-            EXECUTOR.execute(() -> channelChanged(oldValue.intValue(), channel));
+            updateState(s -> s.withChannel(newValue.intValue()));
+            post(ChangeKind.CHANNEL, oldValue, newValue);
         };
 
         public int getChannel() {
-            return channel;
+            return state.get().getChannel();
         }
 
         /**
@@ -133,13 +477,12 @@ public abstract class AbstractController implements Controller {
         /*
          * ---- coarseIncrement ------------------------------------------------
          */
-        private volatile double coarseIncrement;
         private final ChangeListener<? super Number> coarseIncrementListener = ( observable, oldValue, newValue ) -> {
-            coarseIncrement = newValue.doubleValue();
+            updateState(s -> s.withCoarseIncrement(newValue.doubleValue()));
         };
 
         public double getCoarseIncrement() {
-            return coarseIncrement;
+            return state.get().getCoarseIncrement();
         }
 
 
@@ -155,15 +498,21 @@ public abstract class AbstractController implements Controller {
 
         /*
          * ---- currentValue ---------------------------------------------------
+         * Changes are forwarded no more often than the controllable's
+         * forwarding rate: the ones arriving too early are merged into a
+         * trailing change, posted by the SCHEDULER when the rate allows it.
          */
-        private volatile double currentValue;
         private final ChangeListener<? super Number> currentValueListener = ( observable, oldValue, newValue ) -> {
-            currentValue = newValue.doubleValue();
-            EXECUTOR.execute(() -> currentValueChanged(oldValue.doubleValue(), currentValue));
+            updateState(s -> s.withCurrentValue(newValue.doubleValue()));
+            forwardCurrentValue(getControllable().getCurrentValueForwardingRate());
         };
+        private final Object currentValueLock = new Object();
+        private double forwardedCurrentValue;             //  Guarded by currentValueLock.
+        private long currentValueForwardTime = 0L;        //  Guarded by currentValueLock.
+        private boolean currentValueForwardScheduled = false;  //  Guarded by currentValueLock.
 
         public double getCurrentValue() {
-            return currentValue;
+            return state.get().getCurrentValue();
         }
 
         /**
@@ -174,19 +523,69 @@ public abstract class AbstractController implements Controller {
          */
         protected abstract void currentValueChanged( double oldValue, double newValue );
 
+        /**
+         * Post the current value change, unless a trailing one is already
+         * scheduled or the given rate requires a trailing one.
+         *
+         * @param rate The maximum number of changes per second, or 0 for no
+         *             limit.
+         */
+        private void forwardCurrentValue( double rate ) {
+            synchronized ( currentValueLock ) {
+                if ( !currentValueForwardScheduled ) {
+
+                    long now = System.nanoTime();
+                    long wait = ( rate > 0 ) ? currentValueForwardTime + (long) ( TimeUnit.SECONDS.toNanos(1) / rate ) - now : 0L;
+
+                    if ( wait <= 0L ) {
+                        postCurrentValue(now);
+                    } else {
+                        currentValueForwardScheduled = true;
+                        SCHEDULER.schedule(this::forwardTrailingCurrentValue, wait, TimeUnit.NANOSECONDS);
+                    }
+
+                }
+            }
+        }
+
+        private void forwardTrailingCurrentValue() {
+            synchronized ( currentValueLock ) {
+
+                currentValueForwardScheduled = false;
+
+                if ( !disposed ) {
+                    postCurrentValue(System.nanoTime());
+                }
+
+            }
+        }
+
+        /**
+         * Must be called holding {@link #currentValueLock}.
+         */
+        private void postCurrentValue( long now ) {
+
+            double value = getCurrentValue();
+
+            post(ChangeKind.CURRENT_VALUE, forwardedCurrentValue, value);
+
+            forwardedCurrentValue = value;
+            currentValueForwardTime = now;
+
+        }
+
 
         /*
          * ---- disable --------------------------------------------------------
          * Tell the physical device that this controllable is disabled.
          */
-        private volatile boolean disabled;
         private final ChangeListener<? super Boolean> disabledListener = ( observable, oldValue, newValue ) -> {
-            disabled = newValue;
-            EXECUTOR.execute(() -> disabledChanged(oldValue, disabled));
+            updateState(s -> s.withDisabled(newValue));
+            post(ChangeKind.DISABLED, oldValue, newValue);
         };
 
         public boolean isDisabled() {
-            return disabled;
+            return state.get().isDisabled();
         }
 
         /**
@@ -201,45 +600,268 @@ public abstract class AbstractController implements Controller {
         /*
          * ---- fineIncrement --------------------------------------------------
          */
-        private volatile double fineIncrement;
         private final ChangeListener<? super Number> fineIncrementListener = ( observable, oldValue, newValue ) -> {
-            fineIncrement = newValue.doubleValue();
+            updateState(s -> s.withFineIncrement(newValue.doubleValue()));
         };
 
         public double getFineIncrement() {
-            return fineIncrement;
+            return state.get().getFineIncrement();
         }
 
 
         /*
          * ---- fineResolution -------------------------------------------------
          */
-        private boolean fineResolution = false;
-
         public boolean isFineResolution() {
-            return fineResolution;
+            return state.get().isFineResolution();
         }
 
         public void setFineResolution( boolean fineResolution ) {
+            updateState(s -> s.withFineResolution(fineResolution));
+            markForFxUpdate(FX_FINE_RESOLUTION);
+        }
+
+
+        /*
+         * ---- fxUpdates ------------------------------------------------------
+         * Changes coming from the physical device are applied to the
+         * controllable in batch on the JavaFX thread.
+         */
+        private static final int FX_TARGET_VALUE = 0x01;
+        private static final int FX_FINE_RESOLUTION = 0x02;
+        private static final int FX_TAG_COLOR = 0x04;
+        private static final int FX_TARGET_VALUE_SET = 0x08;
+
+        private final AtomicInteger fxUpdateFlags = new AtomicInteger(0);
+
+        /**
+         * Apply the pending changes to the controllable. Called on the JavaFX
+         * thread.
+         */
+        private void applyFxUpdates() {
+
+            int flags = fxUpdateFlags.getAndSet(0);
+
+            ControllableState s = state.get();
+
+            if ( ( flags & FX_TARGET_VALUE ) != 0 ) {
+
+                long origin = fxApplyTraceOrigin.getAndSet(0L);
+
+                controllable.targetValueProperty().set(s.getTargetValue());
+
+                if ( origin != 0L ) {
+                    trace(LatencyTracer.Stage.FX_APPLY, origin);
+                }
+
+            }
+
+            if ( ( flags & FX_FINE_RESOLUTION ) != 0 ) {
+                controllable.fineResolutionProperty().set(s.isFineResolution());
+            }
+
+            if ( ( flags & FX_TAG_COLOR ) != 0 ) {
+                controllable.tagColorProperty().set(s.getTagColor());
+                updatingTegColor = false;
+            }
+
+            //  Must be the last one, after the target value was set.
+            if ( ( flags & FX_TARGET_VALUE_SET ) != 0 ) {
+
+                long origin = fxFireTraceOrigin.getAndSet(0L);
+
+                controllable.fireTargeValueSet();
+
+                if ( origin != 0L ) {
+                    trace(LatencyTracer.Stage.TARGET_VALUE_SET, origin);
+                }
+
+            }
+
+        }
+
+        /**
+         * Tell the controllable, on the JavaFX thread, that the target value
+         * was set. It will be notified after the value set by the last
+         * {@link #setTargetValue(double)} call is applied.
+         */
+        protected void fireTargetValueSet() {
+            markForFxUpdate(FX_TARGET_VALUE_SET);
+        }
+
+        private void markForFxUpdate( int flag ) {
+            if ( fxUpdateFlags.getAndAccumulate(flag, ( a, b ) -> a | b) == 0 ) {
+                controller.scheduleFxUpdate(this);
+            }
+        }
+
+
+        /*
+         * ---- latency tracing ------------------------------------------------
+         * When tracing is enabled, the reception time of the device message
+         * being handled is carried along to the JavaFX thread, and the
+         * latency of each stage is recorded into the controller's tracer.
+         */
+        private volatile long traceOrigin = 0L;
+        private final AtomicLong fxApplyTraceOrigin = new AtomicLong(0L);
+        private final AtomicLong fxFireTraceOrigin = new AtomicLong(0L);
+
+        /**
+         * Start tracing the handling of a device message for this wrapper.
+         * Must be called, on the thread handling the message, before any
+         * {@link #setTargetValue(double)} it causes, and followed by
+         * {@link #traceMessageHandled()} once the message is handled.
+         * <P>
+         * The {@link LatencyTracer.Stage#TARGET_VALUE_SET} latency is measured
+         * from the last message setting the target value, so it includes any
+         * time-out the controller waits before notifying the controllable.
+         *
+         * @param receptionTime The {@link System#nanoTime()} when the message
+         *                      was received, or {@code 0} if tracing is not
+         *                      enabled.
+         * @param settingTarget {@code true} if the message can set the target
+         *                      value. Messages that cannot must not start
+         *                      the tracing of a target value change, otherwise
+         *                      a later {@link #setTargetValue(double)} not
+         *                      caused by a device message (e.g. on a time-out)
+         *                      would be measured from them.
+         */
+        protected void traceMessageReceived( long receptionTime, boolean settingTarget ) {
+
+            traceOrigin = settingTarget ? receptionTime : 0L;
+
+            if ( receptionTime != 0L ) {
+                trace(LatencyTracer.Stage.DISPATCH, receptionTime);
+            }
+
+        }
+
+        /**
+         * Stop tracing the handling of the device message passed to the last
+         * {@link #traceMessageReceived(long, boolean)} call, if it didn't set
+         * the target value.
+         */
+        protected void traceMessageHandled() {
+            traceOrigin = 0L;
+        }
+
+        private void trace( LatencyTracer.Stage stage, long origin ) {
+            controller.getMetrics().getLatencyTracer().record(stage, getChannel(), System.nanoTime() - origin);
+        }
+
+        /*
+         * ---- mailbox --------------------------------------------------------
+         * Property changes are handled one at a time, in order, by the shared
+         * executor. Pending changes of the same kind are merged into one.
+         */
+        private final ConcurrentLinkedQueue<ChangeKind> mailbox = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean mailboxScheduled = new AtomicBoolean(false);
+        private final AtomicReferenceArray<PendingChange> pendingChanges = new AtomicReferenceArray<>(ChangeKind.values().length);
+        private volatile boolean disposed = false;
+
+        /**
+         * Post the given change into this wrapper's mailbox, merging it with the
+         * pending one of the same kind, if any.
+         *
+         * @param kind     The kind of change.
+         * @param oldValue The property old value.
+         * @param newValue The property new value.
+         */
+        private void post( ChangeKind kind, Object oldValue, Object newValue ) {
+            while ( true ) {
+
+                PendingChange pending = pendingChanges.get(kind.ordinal());
+
+                if ( pending == null ) {
+                    if ( pendingChanges.compareAndSet(kind.ordinal(), null, new PendingChange(oldValue, newValue)) ) {
+
+                        mailbox.offer(kind);
+
+                        if ( mailboxScheduled.compareAndSet(false, true) ) {
+                            EXECUTOR.execute(this::drainMailbox);
+                        }
+
+                        return;
+
+                    }
+                } else if ( pendingChanges.compareAndSet(kind.ordinal(), pending, new PendingChange(pending.oldValue, newValue)) ) {
+                    return;
+                }
+
+            }
+        }
+
+        /**
+         * Handles a batch of pending changes, then resubmits itself if more
+         * changes are waiting.
+         */
+        private void drainMailbox() {
+
+            ChangeKind kind;
+            int budget = MAILBOX_BATCH;
+
+            while ( budget-- > 0 && ( kind = mailbox.poll() ) != null ) {
+
+                PendingChange change = pendingChanges.getAndSet(kind.ordinal(), null);
 
-            this.fineResolution = fineResolution;
+                if ( change != null && !disposed ) {
+                    try {
+                        dispatch(kind, change.oldValue, change.newValue);
+                    } catch ( RuntimeException ex ) {
+                        LOGGER.log(Level.WARNING, "Unable to handle property change.", ex);
+                    }
+                }
 
-            Platform.runLater(() -> controllable.fineResolutionProperty().set(this.fineResolution));
+            }
+
+            mailboxScheduled.set(false);
+
+            if ( !mailbox.isEmpty() && mailboxScheduled.compareAndSet(false, true) ) {
+                EXECUTOR.execute(this::drainMailbox);
+            }
 
         }
 
+        private void dispatch( ChangeKind kind, Object oldValue, Object newValue ) {
+            switch ( kind ) {
+                case CHANNEL:
+                    channelChanged(( (Number) oldValue ).intValue(), ( (Number) newValue ).intValue());
+                    break;
+                case CURRENT_VALUE:
+                    currentValueChanged(( (Number) oldValue ).doubleValue(), ( (Number) newValue ).doubleValue());
+                    break;
+                case DISABLED:
+                    disabledChanged((Boolean) oldValue, (Boolean) newValue);
+                    break;
+                case MAX_VALUE:
+                    maxValueChanged(( (Number) oldValue ).doubleValue(), ( (Number) newValue ).doubleValue());
+                    break;
+                case MIN_VALUE:
+                    minValueChanged(( (Number) oldValue ).doubleValue(), ( (Number) newValue ).doubleValue());
+                    break;
+                case OPERATING_MODE:
+                    operatingModeChanged((Controllable.OperatingMode) oldValue, (Controllable.OperatingMode) newValue);
+                    break;
+                case TAG_COLOR:
+                    tagColorChanged((Color) oldValue, (Color) newValue);
+                    break;
+                case TARGET_VALUE:
+                    targetValueChanged(( (Number) oldValue ).doubleValue(), ( (Number) newValue ).doubleValue());
+                    break;
+            }
+        }
+
 
         /*
          * ---- maxValue -------------------------------------------------------
          */
-        private volatile double maxValue;
         private final ChangeListener<? super Number> maxValueListener = ( observable, oldValue, newValue ) -> {
-            maxValue = newValue.doubleValue();
-            EXECUTOR.execute(() -> maxValueChanged(oldValue.doubleValue(), maxValue));
+            updateState(s -> s.withMaxValue(newValue.doubleValue()));
+            post(ChangeKind.MAX_VALUE, oldValue, newValue);
         };
 
         public double getMaxValue() {
-            return maxValue;
+            return state.get().getMaxValue();
         }
 
         /**
@@ -254,14 +876,13 @@ public abstract class AbstractController implements Controller {
         /*
          * ---- minValue -------------------------------------------------------
          */
-        private volatile double minValue;
         private final ChangeListener<? super Number> minValueListener = ( observable, oldValue, newValue ) -> {
-            minValue = newValue.doubleValue();
-            EXECUTOR.execute(() -> minValueChanged(oldValue.doubleValue(), minValue));
+            updateState(s -> s.withMinValue(newValue.doubleValue()));
+            post(ChangeKind.MIN_VALUE, oldValue, newValue);
         };
 
         public double getMinValue() {
-            return minValue;
+            return state.get().getMinValue();
         }
 
         /**
@@ -276,14 +897,13 @@ public abstract class AbstractController implements Controller {
         /*
          * ---- operatingMode --------------------------------------------------
          */
-        private volatile Controllable.OperatingMode operatingMode;
         private final ChangeListener<? super Controllable.OperatingMode> operatingModeListener = ( observable, oldValue, newValue ) -> {
-            operatingMode = newValue;
-            EXECUTOR.execute(() -> operatingModeChanged(oldValue, operatingMode));
+            updateState(s -> s.withOperatingMode(newValue));
+            post(ChangeKind.OPERATING_MODE, oldValue, newValue);
         };
 
         public Controllable.OperatingMode getOperatingMode() {
-            return operatingMode;
+            return state.get().getOperatingMode();
         }
 
         /**
@@ -295,34 +915,64 @@ public abstract class AbstractController implements Controller {
         protected abstract void operatingModeChanged( Controllable.OperatingMode oldValue, Controllable.OperatingMode newValue );
 
 
+        /*
+         * ---- state ----------------------------------------------------------
+         * All the mirrored controllable's properties, published atomically as
+         * a single immutable snapshot.
+         */
+        private final AtomicReference<ControllableState> state = new AtomicReference<>();
+
+        /**
+         * @return The current, consistent snapshot of the mirrored
+         *         {@link Controllable}'s properties. Callers needing more than
+         *         one property should read all of them from the same snapshot.
+         */
+        public ControllableState getState() {
+            return state.get();
+        }
+
+        /**
+         * Atomically replace the state snapshot with the one returned by the
+         * given function, retrying if another thread changed it concurrently.
+         *
+         * @param update The function returning the new snapshot from the
+         *               current one. Must be side-effect free.
+         */
+        private void updateState( UnaryOperator<ControllableState> update ) {
+
+            ControllableState current;
+
+            do {
+                current = state.get();
+            } while ( !state.compareAndSet(current, update.apply(current)) );
+
+        }
+
+
         /*
          * ---- tagColor -------------------------------------------------------
          */
         private volatile boolean updatingTegColor = false;
-        private volatile Color tagColor;
         private final ChangeListener<? super Color> tagColorListener = ( observable, oldValue, newValue ) -> {
 
-            tagColor = newValue;
+            updateState(s -> s.withTagColor(newValue));
 
             if ( ! updatingTegColor ) {
-                EXECUTOR.execute(() -> tagColorChanged(oldValue, tagColor));
+                post(ChangeKind.TAG_COLOR, oldValue, newValue);
             }
 
         };
 
         public Color getTagColor() {
-            return tagColor;
+            return state.get().getTagColor();
         }
 
         public void setTagColor( Color tagColor ) {
 
             this.updatingTegColor = true;
-            this.tagColor = tagColor;
+            updateState(s -> s.withTagColor(tagColor));
 
-            Platform.runLater(() -> {
-                controllable.tagColorProperty().set(this.tagColor);
-                updatingTegColor = false;
-            });
+            markForFxUpdate(FX_TAG_COLOR);
 
         }
 
@@ -338,21 +988,35 @@ public abstract class AbstractController implements Controller {
         /*
          * ---- targetValue ---------------------------------------------------
          */
-        private volatile double targetValue;
         private final ChangeListener<? super Number> targetValueListener = ( observable, oldValue, newValue ) -> {
-            targetValue = newValue.doubleValue();
-            EXECUTOR.execute(() -> targetValueChanged(oldValue.doubleValue(), targetValue));
+            updateState(s -> s.withTargetValue(newValue.doubleValue()));
+            post(ChangeKind.TARGET_VALUE, oldValue, newValue);
         };
 
         public double getTargetValue() {
-            return targetValue;
+            return state.get().getTargetValue();
         }
 
+        /**
+         * Set the target value, clamped inside the [minValue, maxValue] range
+         * of the same state snapshot.
+         *
+         * @param targetValue The new target value.
+         */
         public void setTargetValue( double targetValue ) {
 
-            this.targetValue = clamp(targetValue, getMinValue(), getMaxValue());
+            updateState(s -> s.withTargetValue(s.clamp(targetValue)));
 
-            Platform.runLater(() -> controllable.targetValueProperty().set(this.targetValue));
+            long origin = traceOrigin;
+
+            if ( origin != 0L ) {
+                traceOrigin = 0L;
+                trace(LatencyTracer.Stage.TARGET_SET, origin);
+                fxApplyTraceOrigin.set(origin);
+                fxFireTraceOrigin.set(origin);
+            }
+
+            markForFxUpdate(FX_TARGET_VALUE);
 
         }
 
@@ -384,6 +1048,7 @@ public abstract class AbstractController implements Controller {
          * <B>Note:</B> always call {@code super.dispose()}.
          */
         protected void dispose() {
+            disposed = true;
             controllable.targetValueProperty().removeListener(targetValueListener);
             controllable.tagColorProperty().removeListener(tagColorListener);
             controllable.operatingModeProperty().removeListener(operatingModeListener);
@@ -394,41 +1059,16 @@ public abstract class AbstractController implements Controller {
             controllable.currentValueProperty().removeListener(currentValueListener);
             controllable.coarseIncrementProperty().removeListener(coarseIncrementListener);
             controllable.channelProperty().removeListener(channelListener);
-        }
-
-        /**
-         * Clamp the given {@code value} inside a range defined by the given minimum
-         * and maximum values.
-         *
-         * @param value The value to be clamped.
-         * @param min   The clamp range minimum value.
-         * @param max   The clamp range maximum value.
-         * @return {@code value} if it's inside the range, otherwise {@code min} if
-         *         {@code value} is below the range, or {@code max} if above the range.
-         */
-        private double clamp ( final double value, final double min, final double max ) {
-            if ( value < min ) {
-                return min;
-            } else if ( value > max ) {
-                return max;
-            } else {
-                return value;
-            }
+            controllable.accelerationProperty().removeListener(accelerationListener);
         }
 
         private void init() {
 
-            this.channel = controllable.channelProperty().get();
-            this.coarseIncrement = controllable.coarseIncrementProperty().get();
-            this.currentValue = controllable.currentValueProperty().get();
-            this.disabled = controllable.disabledProperty().get();
-            this.fineIncrement = controllable.fineIncrementProperty().get();
-            this.maxValue = controllable.maxValueProperty().get();
-            this.minValue = controllable.minValueProperty().get();
-            this.operatingMode = controllable.operatingModeProperty().get();
-            this.tagColor = controllable.tagColorProperty().get();
-            this.targetValue = controllable.targetValueProperty().get();
+            state.set(ControllableState.of(controllable));
+
+            this.forwardedCurrentValue = getCurrentValue();
 
+            controllable.accelerationProperty().addListener(accelerationListener);
             controllable.channelProperty().addListener(channelListener);
             controllable.coarseIncrementProperty().addListener(coarseIncrementListener);
             controllable.currentValueProperty().addListener(currentValueListener);
@@ -447,4 +1087,76 @@ public abstract class AbstractController implements Controller {
 
     }
 
+    /**
+     * The kinds of property change handled by a wrapper's mailbox.
+     */
+    private enum ChangeKind {
+        CHANNEL,
+        CURRENT_VALUE,
+        DISABLED,
+        MAX_VALUE,
+        MIN_VALUE,
+        OPERATING_MODE,
+        TAG_COLOR,
+        TARGET_VALUE
+    }
+
+    /**
+     * An immutable snapshot of the controllables attached to a controller.
+     */
+    private static final class Registry {
+
+        static final Registry EMPTY = new Registry(new HashMap<>(0));
+
+        final Set<Controllable> controllables;
+        final Map<Controllable, AbstractControllableWrapper> map;
+        final List<AbstractControllableWrapper> wrappers;
+
+        private Registry( Map<Controllable, AbstractControllableWrapper> map ) {
+            this.map = Collections.unmodifiableMap(map);
+            this.controllables = this.map.keySet();
+            this.wrappers = Collections.unmodifiableList(Arrays.asList(map.values().toArray(new AbstractControllableWrapper[map.size()])));
+        }
+
+        Registry with( Controllable controllable, AbstractControllableWrapper wrapper ) {
+
+            Map<Controllable, AbstractControllableWrapper> updated = new HashMap<>(map);
+
+            updated.put(controllable, wrapper);
+
+            return new Registry(updated);
+
+        }
+
+        Registry without( Controllable controllable ) {
+
+            if ( !map.containsKey(controllable) ) {
+                return this;
+            }
+
+            Map<Controllable, AbstractControllableWrapper> updated = new HashMap<>(map);
+
+            updated.remove(controllable);
+
+            return new Registry(updated);
+
+        }
+
+    }
+
+    /**
+     * A property change waiting in a wrapper's mailbox.
+     */
+    private static final class PendingChange {
+
+        final Object oldValue;
+        final Object newValue;
+
+        PendingChange( Object oldValue, Object newValue ) {
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+        }
+
+    }
+
 }
@@ -0,0 +1,132 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2017 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.javafx.control.knobs.controller;
+
+
+import java.text.MessageFormat;
+
+
+/**
+ * The curve amplifying the coarse increments of a controller when its
+ * physical device is operated fast. Given the time elapsed since the previous
+ * detent in the same direction, the factor applied to the coarse increment
+ * is:
+ * <ul>
+ * <li>{@code 1} for intervals not shorter than the slow interval;</li>
+ * <li>{@code 1 + acceleration} for intervals not longer than the fast
+ * interval;</li>
+ * <li>{@code 1 + acceleration * x^exponent} otherwise, {@code x} going
+ * linearly from 0, at the slow interval, to 1, at the fast one.</li>
+ * </ul>
+ * The {@code acceleration} gain is the one of each {@link Controllable}.
+ *
+ * @author Claudio Rosati, European Spallation Source ERIC
+ * @version 1.0.0 18 Oct 2026
+ */
+public final class AccelerationCurve {
+
+    /**
+     * The default curve: quadratic, from 120ms down to 8ms.
+     */
+    public static final AccelerationCurve DEFAULT = new AccelerationCurve(8000L, 120000L, 2.0);
+
+    private final double exponent;
+    private final long fastInterval;
+    private final long slowInterval;
+
+    /**
+     * Create a new curve.
+     *
+     * @param fastInterval The interval, in microseconds, below which the full
+     *                     acceleration is applied. Must not be negative.
+     * @param slowInterval The interval, in microseconds, above which no
+     *                     acceleration is applied. Must be greater than
+     *                     {@code fastInterval}.
+     * @param exponent     The exponent of the curve between the two
+     *                     intervals (1 for linear, 2 for quadratic...). Must
+     *                     be positive.
+     */
+    public AccelerationCurve( long fastInterval, long slowInterval, double exponent ) {
+
+        if ( fastInterval < 0 || slowInterval <= fastInterval ) {
+            throw new IllegalArgumentException(MessageFormat.format(
+                "Invalid intervals [fast: {0}, slow: {1}].",
+                fastInterval,
+                slowInterval
+            ));
+        } else if ( !( exponent > 0 ) || Double.isInfinite(exponent) ) {
+            throw new IllegalArgumentException(MessageFormat.format("Invalid exponent [{0}].", exponent));
+        }
+
+        this.fastInterval = fastInterval;
+        this.slowInterval = slowInterval;
+        this.exponent = exponent;
+
+    }
+
+    /**
+     * @return The exponent of the curve between the fast and slow intervals.
+     */
+    public double getExponent() {
+        return exponent;
+    }
+
+    /**
+     * @return The interval, in microseconds, below which the full
+     *         acceleration is applied.
+     */
+    public long getFastInterval() {
+        return fastInterval;
+    }
+
+    /**
+     * @return The interval, in microseconds, above which no acceleration is
+     *         applied.
+     */
+    public long getSlowInterval() {
+        return slowInterval;
+    }
+
+    /**
+     * Return the factor to be applied to the coarse increment.
+     *
+     * @param acceleration The acceleration gain. 0 or negative means no
+     *                     acceleration.
+     * @param interval     The time elapsed since the previous detent, in
+     *                     microseconds, or a negative value if unknown.
+     * @return The factor to be applied to the coarse increment.
+     */
+    public double factor( double acceleration, long interval ) {
+
+        if ( acceleration <= 0 || interval < 0 || interval >= slowInterval ) {
+            return 1.0;
+        } else if ( interval <= fastInterval ) {
+            return 1.0 + acceleration;
+        }
+
+        double x = (double) ( slowInterval - interval ) / ( slowInterval - fastInterval );
+
+        return 1.0 + acceleration * ( exponent == 2.0 ? x * x : Math.pow(x, exponent) );
+
+    }
+
+    @Override
+    public String toString() {
+        return MessageFormat.format("AccelerationCurve[fast: {0}µs, slow: {1}µs, exponent: {2}]", fastInterval, slowInterval, exponent);
+    }
+
+}
@@ -24,6 +24,7 @@ import javafx.beans.property.ReadOnlyBooleanProperty;
 import javafx.beans.property.ReadOnlyDoubleProperty;
 import javafx.beans.property.ReadOnlyIntegerProperty;
 import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.SimpleDoubleProperty;
 import javafx.scene.paint.Color;
 
 
@@ -62,6 +63,22 @@ public interface Controllable {
     }
 
 
+    /*
+     * ---- acceleration -------------------------------------------------------
+     * How much the coarse increment is amplified when the physical device is
+     * operated fast. 0 means no acceleration. Fine increments are never
+     * amplified.
+     */
+    /**
+     * This default implementation returns a new property whose value is
+     * always {@code 0}, i.e. no acceleration.
+     *
+     * @return The acceleration gain property.
+     */
+    public default ReadOnlyDoubleProperty accelerationProperty() {
+        return new SimpleDoubleProperty(this, "acceleration", 0);
+    }
+
     /*
      * ---- channel ------------------------------------------------------------
      * The channel number of this controllable.
@@ -82,6 +99,20 @@ public interface Controllable {
      */
     public ReadOnlyDoubleProperty currentValueProperty();
 
+    /**
+     * Changes of the current value occurring more often than the returned rate
+     * are merged before being forwarded to the physical device: only the last
+     * one is forwarded when the rate allows it.
+     * <P>
+     * This default implementation returns {@code 0}.
+     *
+     * @return The maximum number of current value changes per second forwarded
+     *         to the physical device, or {@code 0} for no limit.
+     */
+    public default double getCurrentValueForwardingRate() {
+        return 0;
+    }
+
     /*
      * ---- disabled -----------------------------------------------------------
      * Tell the physical device that this controllable is disabled.
@@ -0,0 +1,238 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2017 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.javafx.control.knobs.controller;
+
+
+import javafx.scene.paint.Color;
+
+
+/**
+ * An immutable snapshot of the state of a {@link Controllable}, as cached by
+ * its controller wrapper. Each property change publishes a new snapshot, so
+ * that related values (e.g. the minimum and maximum values) read from the
+ * same snapshot are always consistent.
+ *
+ * @author Claudio Rosati, European Spallation Source ERIC
+ * @version 1.0.0 18 Oct 2026
+ */
+public final class ControllableState {
+
+    private static final int MIDI_MAX = 127;
+
+    private final double acceleration;
+    private final int channel;
+    private final double coarseIncrement;
+    private final double currentValue;
+    private final boolean disabled;
+    private final double fineIncrement;
+    private final boolean fineResolution;
+    private final double maxValue;
+    private final double minValue;
+    private final Controllable.OperatingMode operatingMode;
+    private final Color tagColor;
+    private final double targetValue;
+
+    /**
+     * {@code 127 / ( maxValue - minValue )}, or {@code 0} if the range is
+     * empty.
+     */
+    private final double midiScale;
+
+    /**
+     * Create a snapshot of the current state of the given controllable.
+     *
+     * @param controllable The controllable whose state must be copied.
+     * @return A new snapshot.
+     */
+    static ControllableState of( Controllable controllable ) {
+        return new ControllableState(
+            controllable.accelerationProperty().get(),
+            controllable.channelProperty().get(),
+            controllable.coarseIncrementProperty().get(),
+            controllable.currentValueProperty().get(),
+            controllable.disabledProperty().get(),
+            controllable.fineIncrementProperty().get(),
+            false,
+            controllable.maxValueProperty().get(),
+            controllable.minValueProperty().get(),
+            controllable.operatingModeProperty().get(),
+            controllable.tagColorProperty().get(),
+            controllable.targetValueProperty().get()
+        );
+    }
+
+    private ControllableState(
+        double acceleration,
+        int channel,
+        double coarseIncrement,
+        double currentValue,
+        boolean disabled,
+        double fineIncrement,
+        boolean fineResolution,
+        double maxValue,
+        double minValue,
+        Controllable.OperatingMode operatingMode,
+        Color tagColor,
+        double targetValue
+    ) {
+
+        this.acceleration = acceleration;
+        this.channel = channel;
+        this.coarseIncrement = coarseIncrement;
+        this.currentValue = currentValue;
+        this.disabled = disabled;
+        this.fineIncrement = fineIncrement;
+        this.fineResolution = fineResolution;
+        this.maxValue = maxValue;
+        this.minValue = minValue;
+        this.operatingMode = operatingMode;
+        this.tagColor = tagColor;
+        this.targetValue = targetValue;
+        this.midiScale = ( maxValue > minValue ) ? MIDI_MAX / ( maxValue - minValue ) : 0.0;
+
+    }
+
+    public double getAcceleration() {
+        return acceleration;
+    }
+
+    public int getChannel() {
+        return channel;
+    }
+
+    public double getCoarseIncrement() {
+        return coarseIncrement;
+    }
+
+    public double getCurrentValue() {
+        return currentValue;
+    }
+
+    public double getFineIncrement() {
+        return fineIncrement;
+    }
+
+    public double getMaxValue() {
+        return maxValue;
+    }
+
+    public double getMinValue() {
+        return minValue;
+    }
+
+    public Controllable.OperatingMode getOperatingMode() {
+        return operatingMode;
+    }
+
+    public Color getTagColor() {
+        return tagColor;
+    }
+
+    public double getTargetValue() {
+        return targetValue;
+    }
+
+    public boolean isDisabled() {
+        return disabled;
+    }
+
+    public boolean isFineResolution() {
+        return fineResolution;
+    }
+
+    /**
+     * Clamp the given {@code value} inside the [minValue, maxValue] range.
+     *
+     * @param value The value to be clamped.
+     * @return {@code value} if it's inside the range, otherwise
+     *         {@code minValue} if {@code value} is below the range, or
+     *         {@code maxValue} if above the range.
+     */
+    public double clamp( double value ) {
+        if ( value < minValue ) {
+            return minValue;
+        } else if ( value > maxValue ) {
+            return maxValue;
+        } else {
+            return value;
+        }
+    }
+
+    /**
+     * Map the given value into the [0, 127] range of MIDI data bytes.
+     *
+     * @param value The value to be mapped.
+     * @return The MIDI value corresponding to the given {@code value}, 0 if
+     *         the [minValue, maxValue] range is empty.
+     */
+    public int midiValue( double value ) {
+
+        long midi = Math.round(( value - minValue ) * midiScale);
+
+        return (int) Math.max(0L, Math.min(MIDI_MAX, midi));
+
+    }
+
+    ControllableState withAcceleration( double acceleration ) {
+        return new ControllableState(acceleration, channel, coarseIncrement, currentValue, disabled, fineIncrement, fineResolution, maxValue, minValue, operatingMode, tagColor, targetValue);
+    }
+
+    ControllableState withChannel( int channel ) {
+        return new ControllableState(acceleration, channel, coarseIncrement, currentValue, disabled, fineIncrement, fineResolution, maxValue, minValue, operatingMode, tagColor, targetValue);
+    }
+
+    ControllableState withCoarseIncrement( double coarseIncrement ) {
+        return new ControllableState(acceleration, channel, coarseIncrement, currentValue, disabled, fineIncrement, fineResolution, maxValue, minValue, operatingMode, tagColor, targetValue);
+    }
+
+    ControllableState withCurrentValue( double currentValue ) {
+        return new ControllableState(acceleration, channel, coarseIncrement, currentValue, disabled, fineIncrement, fineResolution, maxValue, minValue, operatingMode, tagColor, targetValue);
+    }
+
+    ControllableState withDisabled( boolean disabled ) {
+        return new ControllableState(acceleration, channel, coarseIncrement, currentValue, disabled, fineIncrement, fineResolution, maxValue, minValue, operatingMode, tagColor, targetValue);
+    }
+
+    ControllableState withFineIncrement( double fineIncrement ) {
+        return new ControllableState(acceleration, channel, coarseIncrement, currentValue, disabled, fineIncrement, fineResolution, maxValue, minValue, operatingMode, tagColor, targetValue);
+    }
+
+    ControllableState withFineResolution( boolean fineResolution ) {
+        return new ControllableState(acceleration, channel, coarseIncrement, currentValue, disabled, fineIncrement, fineResolution, maxValue, minValue, operatingMode, tagColor, targetValue);
+    }
+
+    ControllableState withMaxValue( double maxValue ) {
+        return new ControllableState(acceleration, channel, coarseIncrement, currentValue, disabled, fineIncrement, fineResolution, maxValue, minValue, operatingMode, tagColor, targetValue);
+    }
+
+    ControllableState withMinValue( double minValue ) {
+        return new ControllableState(acceleration, channel, coarseIncrement, currentValue, disabled, fineIncrement, fineResolution, maxValue, minValue, operatingMode, tagColor, targetValue);
+    }
+
+    ControllableState withOperatingMode( Controllable.OperatingMode operatingMode ) {
+        return new ControllableState(acceleration, channel, coarseIncrement, currentValue, disabled, fineIncrement, fineResolution, maxValue, minValue, operatingMode, tagColor, targetValue);
+    }
+
+    ControllableState withTagColor( Color tagColor ) {
+        return new ControllableState(acceleration, channel, coarseIncrement, currentValue, disabled, fineIncrement, fineResolution, maxValue, minValue, operatingMode, tagColor, targetValue);
+    }
+
+    ControllableState withTargetValue( double targetValue ) {
+        return new ControllableState(acceleration, channel, coarseIncrement, currentValue, disabled, fineIncrement, fineResolution, maxValue, minValue, operatingMode, tagColor, targetValue);
+    }
+
+}
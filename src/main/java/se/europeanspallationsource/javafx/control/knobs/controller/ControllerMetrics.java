@@ -0,0 +1,255 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2017 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.javafx.control.knobs.controller;
+
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+
+/**
+ * The counters describing the activity of an {@link AbstractController},
+ * registered as a JMX MBean.
+ *
+ * @author Claudio Rosati, European Spallation Source ERIC
+ * @version 1.0.0 18 Oct 2026
+ */
+public class ControllerMetrics implements ControllerMetricsMBean {
+
+    /*
+     * The FX post rate is computed over the last FX_POST_WINDOW complete
+     * seconds, counted in one-second buckets (plus the current, incomplete,
+     * one), so that reading it has no side effects.
+     */
+    private static final int FX_POST_WINDOW = 10;
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final IntSupplier attachedControllables;
+    private final IntSupplier executorQueueDepth;
+    private final long[] fxPostBuckets = new long[FX_POST_WINDOW + 1];  //  Guarded by this.
+    private final long[] fxPostSeconds = new long[FX_POST_WINDOW + 1];  //  Guarded by this.
+    private final LongAdder fxPosts = new LongAdder();
+    private final String identifier;
+    private volatile long lastResetDuration = -1L;
+    private final LatencyTracer latencyTracer = new LatencyTracer();
+    private final LongAdder messagesDropped = new LongAdder();
+    private final LongAdder messagesReceived = new LongAdder();
+    private final LongAdder messagesSent = new LongAdder();
+    private final LongAdder messagesSuppressed = new LongAdder();
+    private final AtomicLong queueWaitMax = new AtomicLong();
+    private final LongAdder queueWaitTime = new LongAdder();
+    private final LongAdder queueWaits = new LongAdder();
+
+    ControllerMetrics( String identifier, IntSupplier attachedControllables, IntSupplier executorQueueDepth ) {
+        this.identifier = identifier;
+        this.attachedControllables = attachedControllables;
+        this.executorQueueDepth = executorQueueDepth;
+
+        Arrays.fill(fxPostSeconds, Long.MIN_VALUE);
+
+    }
+
+    @Override
+    public int getAttachedControllables() {
+        return attachedControllables.getAsInt();
+    }
+
+    @Override
+    public int getExecutorQueueDepth() {
+        return executorQueueDepth.getAsInt();
+    }
+
+    @Override
+    public synchronized double getFxPostRate() {
+
+        long second = Math.floorDiv(System.nanoTime(), SECOND);
+        long posts = 0L;
+
+        for ( int i = 0; i < fxPostBuckets.length; i++ ) {
+            if ( fxPostSeconds[i] < second && fxPostSeconds[i] >= second - FX_POST_WINDOW ) {
+                posts += fxPostBuckets[i];
+            }
+        }
+
+        return (double) posts / FX_POST_WINDOW;
+
+    }
+
+    @Override
+    public long getFxPosts() {
+        return fxPosts.sum();
+    }
+
+    @Override
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    @Override
+    public long getLastResetDuration() {
+        return lastResetDuration;
+    }
+
+    @Override
+    public String getLatencyReport() {
+        return latencyTracer.report();
+    }
+
+    /**
+     * @return The tracer recording the latencies of the device messages
+     *         handling.
+     */
+    public LatencyTracer getLatencyTracer() {
+        return latencyTracer;
+    }
+
+    @Override
+    public long getMessagesDropped() {
+        return messagesDropped.sum();
+    }
+
+    @Override
+    public long getMessagesReceived() {
+        return messagesReceived.sum();
+    }
+
+    @Override
+    public long getMessagesSent() {
+        return messagesSent.sum();
+    }
+
+    @Override
+    public long getMessagesSuppressed() {
+        return messagesSuppressed.sum();
+    }
+
+    @Override
+    public double getQueueWaitAverage() {
+
+        long waits = queueWaits.sum();
+
+        return ( waits == 0L ) ? 0.0 : queueWaitTime.sum() / 1000.0 / waits;
+
+    }
+
+    @Override
+    public long getQueueWaitMax() {
+        return TimeUnit.NANOSECONDS.toMicros(queueWaitMax.get());
+    }
+
+    @Override
+    public long getQueueWaitTime() {
+        return TimeUnit.NANOSECONDS.toMicros(queueWaitTime.sum());
+    }
+
+    @Override
+    public long getQueueWaits() {
+        return queueWaits.sum();
+    }
+
+    @Override
+    public boolean isTracingEnabled() {
+        return latencyTracer.isEnabled();
+    }
+
+    @Override
+    public void setTracingEnabled( boolean enabled ) {
+        latencyTracer.setEnabled(enabled);
+    }
+
+    @Override
+    public void clearLatencies() {
+        latencyTracer.clear();
+    }
+
+    @Override
+    public void clearQueueWaitMax() {
+        queueWaitMax.set(0L);
+    }
+
+    /**
+     * Count a {@code Platform.runLater} call.
+     */
+    public void fxPosted() {
+
+        fxPosts.increment();
+
+        long second = Math.floorDiv(System.nanoTime(), SECOND);
+        int bucket = (int) Math.floorMod(second, (long) fxPostBuckets.length);
+
+        synchronized ( this ) {
+            if ( fxPostSeconds[bucket] != second ) {
+                fxPostSeconds[bucket] = second;
+                fxPostBuckets[bucket] = 0L;
+            }
+            fxPostBuckets[bucket]++;
+        }
+
+    }
+
+    /**
+     * Count a message not sent because no device was available.
+     */
+    public void messageDropped() {
+        messagesDropped.increment();
+    }
+
+    /**
+     * Count a message received from the device.
+     */
+    public void messageReceived() {
+        messagesReceived.increment();
+    }
+
+    /**
+     * Count a message sent to the device.
+     */
+    public void messageSent() {
+        messagesSent.increment();
+    }
+
+    /**
+     * Count a message not sent because the device already shows its value.
+     */
+    public void messageSuppressed() {
+        messagesSuppressed.increment();
+    }
+
+    /**
+     * Record the time a message waited in the output queue before being sent.
+     *
+     * @param wait The waiting time, in nanoseconds.
+     */
+    public void queueWaited( long wait ) {
+        queueWaitTime.add(wait);
+        queueWaits.increment();
+        queueWaitMax.accumulateAndGet(wait, Math::max);
+    }
+
+    /**
+     * Record the duration of a completed reset.
+     *
+     * @param duration The reset duration, in nanoseconds.
+     */
+    public void resetPerformed( long duration ) {
+        lastResetDuration = TimeUnit.NANOSECONDS.toMillis(duration);
+    }
+
+}
@@ -0,0 +1,137 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2017 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.javafx.control.knobs.controller;
+
+
+/**
+ * The JMX management interface exposing the activity of a
+ * {@link se.europeanspallationsource.javafx.control.knobs.controller.spi.Controller}.
+ *
+ * @author Claudio Rosati, European Spallation Source ERIC
+ * @version 1.0.0 18 Oct 2026
+ */
+public interface ControllerMetricsMBean {
+
+    /**
+     * @return The number of controllables currently attached to the controller.
+     */
+    public int getAttachedControllables();
+
+    /**
+     * @return The number of tasks waiting in the queue of the executor shared
+     *         by all controllers.
+     */
+    public int getExecutorQueueDepth();
+
+    /**
+     * @return The number of {@code Platform.runLater} calls per second,
+     *         averaged over the last 10 complete seconds. Reading it has no
+     *         side effects: use {@link #getFxPosts()} to compute the rate
+     *         over a different interval.
+     */
+    public double getFxPostRate();
+
+    /**
+     * @return The total number of {@code Platform.runLater} calls.
+     */
+    public long getFxPosts();
+
+    /**
+     * @return The identifier of the controller.
+     */
+    public String getIdentifier();
+
+    /**
+     * @return The duration of the last reset, in milliseconds, or -1 if the
+     *         controller was never reset.
+     */
+    public long getLastResetDuration();
+
+    /**
+     * @return A report of the latencies recorded for each handling stage of
+     *         the device messages, if tracing is enabled.
+     * @see LatencyTracer#report()
+     */
+    public String getLatencyReport();
+
+    /**
+     * @return The number of messages that were not sent because no device
+     *         was available.
+     */
+    public long getMessagesDropped();
+
+    /**
+     * @return The number of messages received from the device.
+     */
+    public long getMessagesReceived();
+
+    /**
+     * @return The number of messages sent to the device.
+     */
+    public long getMessagesSent();
+
+    /**
+     * @return The number of messages not sent because the device already
+     *         shows their value.
+     */
+    public long getMessagesSuppressed();
+
+    /**
+     * @return The average time, in microseconds, the sent messages waited in
+     *         the output queue. Use {@link #getQueueWaitTime()} and
+     *         {@link #getQueueWaits()} to compute it over a given interval.
+     */
+    public double getQueueWaitAverage();
+
+    /**
+     * @return The maximum time, in microseconds, a sent message waited in the
+     *         output queue since the controller creation or the last call of
+     *         {@link #clearQueueWaitMax()}.
+     */
+    public long getQueueWaitMax();
+
+    /**
+     * @return The total time, in microseconds, the sent messages waited in
+     *         the output queue.
+     */
+    public long getQueueWaitTime();
+
+    /**
+     * @return The number of sent messages whose waiting time in the output
+     *         queue was recorded.
+     */
+    public long getQueueWaits();
+
+    /**
+     * @return {@code true} if the latencies of the device messages handling
+     *         are recorded.
+     */
+    public boolean isTracingEnabled();
+
+    public void setTracingEnabled( boolean enabled );
+
+    /**
+     * Discard all recorded latencies.
+     */
+    public void clearLatencies();
+
+    /**
+     * Restart the measurement of the maximum queue waiting time.
+     */
+    public void clearQueueWaitMax();
+
+}
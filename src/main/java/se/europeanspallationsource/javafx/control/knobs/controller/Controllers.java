@@ -18,12 +18,17 @@ package se.europeanspallationsource.javafx.control.knobs.controller;
 
 
 import java.text.MessageFormat;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.ServiceLoader;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import se.europeanspallationsource.javafx.control.knobs.controller.spi.Controller;
@@ -31,57 +36,47 @@ import se.europeanspallationsource.javafx.control.knobs.controller.spi.Controlle
 
 /**
  * Factory class to get access to {@link Controller}'s instances.
+ * <P>
+ * Controllers are discovered and reset in background, so that
+ * {@link #get()} never blocks the caller: a controller becomes visible
+ * through this class only when its reset is completed. Use
+ * {@link #whenReady()}, {@link #whenAvailable(String)} or a
+ * {@link ControllersListener} to be notified when controllers are
+ * available.
  *
  * @author claudiorosati
  */
 public class Controllers {
 
-    private static final Map<String, Controller> CONTROLLERS = new HashMap<>(1);
+    private static final Map<String, Controller> CONTROLLERS = new ConcurrentHashMap<>(4);
     private static final Logger LOGGER = Logger.getLogger(Controllers.class.getName());
 
     public static Controllers get() {
         return ControllersHolder.INSTANCE;
     }
 
-    private Controllers() {
-
-        try {
-
-            ServiceLoader<Controller> loader = ServiceLoader.load(Controller.class);
-
-            for ( Controller c : loader ) {
-
-                String id = c.getIdentifier();
-
-                if ( id != null && !id.isEmpty() ) {
-
-                    if ( !CONTROLLERS.containsKey(id) ) {
-                        CONTROLLERS.put(id, c);
-                    } else {
-                        LOGGER.warning(MessageFormat.format(
-                            "Controller \"{0}\" already exists.\n{1} implementation is skipped",
-                            id,
-                            c.getClass().getName()
-                        ));
-                    }
-
-                    LOGGER.info(MessageFormat.format("Resetting controller \"{0}\"…", id));
-
-                    if ( !c.reset() ) {
-                        LOGGER.warning(MessageFormat.format("Resetting controller \"{0}\" failed!", id));
-                    } else {
-                        LOGGER.info(MessageFormat.format("Successful reset of controller \"{0}\"!", id));
-                    }
+    private final Map<String, CompletableFuture<Controller>> availability = new ConcurrentHashMap<>(4);
+    private final List<ControllersListener> listeners = new CopyOnWriteArrayList<>();
+    private final CompletableFuture<Collection<Controller>> readiness = new CompletableFuture<>();
 
+    private Controllers() {
 
-                }
+        Thread discovery = new Thread(this::discover, "Controllers discovery");
 
-            }
+        discovery.setDaemon(true);
+        discovery.start();
 
-        } catch ( Throwable ex ) {
-            LOGGER.log(Level.SEVERE, "Unable to load controllers.", ex);
-        }
+    }
 
+    /**
+     * Add a listener notified when controllers become available. Controllers
+     * already available are not notified: use {@link #getControllers()} for
+     * them.
+     *
+     * @param listener The listener to be added.
+     */
+    public void addListener( ControllersListener listener ) {
+        listeners.add(listener);
     }
 
     /**
@@ -122,6 +117,155 @@ public class Controllers {
         return Collections.unmodifiableSet(CONTROLLERS.keySet());
     }
 
+    /**
+     * @return {@code true} if the discovery of controllers is completed.
+     */
+    public boolean isDiscoveryCompleted() {
+        return readiness.isDone();
+    }
+
+    /**
+     * @param listener The listener to be removed.
+     */
+    public void removeListener( ControllersListener listener ) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Return a future completed with the {@link Controller} matching the
+     * given {@code identifier} when it becomes available.
+     *
+     * @param identifier The identifier of the {@link Controller} to be returned.
+     * @return A future completed with the {@link Controller} matching the
+     *         given {@code identifier}, or with {@code null} if no such
+     *         controller exists once the discovery is completed.
+     */
+    public CompletableFuture<Controller> whenAvailable( String identifier ) {
+
+        CompletableFuture<Controller> future = availability.computeIfAbsent(identifier, id -> new CompletableFuture<>());
+
+        if ( readiness.isDone() ) {
+            future.complete(CONTROLLERS.get(identifier));
+        }
+
+        return future.thenApply(c -> c);
+
+    }
+
+    /**
+     * @return A future completed with all the available {@link Controller}s
+     *         when the discovery is completed.
+     */
+    public CompletableFuture<Collection<Controller>> whenReady() {
+        return readiness.thenApply(c -> c);
+    }
+
+    /**
+     * Instantiate the controllers declared as services, and reset them in
+     * parallel. Each controller is made available as soon as its reset is
+     * completed.
+     */
+    private void discover() {
+
+        List<CompletableFuture<Void>> resets = new ArrayList<>(4);
+        Set<String> identifiers = new HashSet<>(4);
+
+        try {
+
+            ServiceLoader<Controller> loader = ServiceLoader.load(Controller.class);
+
+            List<Controller> controllers = new ArrayList<>(4);
+
+            for ( Controller c : loader ) {
+
+                controllers.add(c);
+
+                try {
+                    controllers.addAll(c.createSiblings());
+                } catch ( RuntimeException ex ) {
+                    LOGGER.log(Level.WARNING, MessageFormat.format("Unable to create siblings of controller \"{0}\".", c.getIdentifier()), ex);
+                }
+
+            }
+
+            for ( Controller c : controllers ) {
+
+                String id = c.getIdentifier();
+
+                if ( id != null && !id.isEmpty() ) {
+
+                    if ( !identifiers.add(id) ) {
+                        LOGGER.warning(MessageFormat.format(
+                            "Controller \"{0}\" already exists.\n{1} implementation is skipped",
+                            id,
+                            c.getClass().getName()
+                        ));
+                        continue;
+                    }
+
+                    LOGGER.info(MessageFormat.format("Resetting controller \"{0}\"…", id));
+
+                    resets.add(c.resetAsync(null).handle(( result, ex ) -> {
+
+                        if ( ex != null ) {
+                            LOGGER.log(Level.WARNING, MessageFormat.format("Resetting controller \"{0}\" failed!", id), ex);
+                        } else if ( !result ) {
+                            LOGGER.warning(MessageFormat.format("Resetting controller \"{0}\" failed!", id));
+                        } else {
+                            LOGGER.info(MessageFormat.format("Successful reset of controller \"{0}\"!", id));
+                        }
+
+                        makeAvailable(c);
+
+                        return null;
+
+                    }));
+
+                }
+
+            }
+
+        } catch ( Throwable ex ) {
+            LOGGER.log(Level.SEVERE, "Unable to load controllers.", ex);
+        }
+
+        CompletableFuture.allOf(resets.toArray(new CompletableFuture<?>[resets.size()])).whenComplete(( result, ex ) -> discoveryCompleted());
+
+    }
+
+    private void discoveryCompleted() {
+
+        readiness.complete(getControllers());
+
+        availability.forEach(( id, future ) -> future.complete(CONTROLLERS.get(id)));
+
+        listeners.forEach(l -> {
+            try {
+                l.discoveryCompleted();
+            } catch ( RuntimeException ex ) {
+                LOGGER.log(Level.WARNING, "Listener failure.", ex);
+            }
+        });
+
+    }
+
+    private void makeAvailable( Controller controller ) {
+
+        String id = controller.getIdentifier();
+
+        CONTROLLERS.put(id, controller);
+        availability.computeIfAbsent(id, i -> new CompletableFuture<>()).complete(controller);
+
+        listeners.forEach(l -> {
+            try {
+                l.controllerAvailable(controller);
+            } catch ( RuntimeException ex ) {
+                LOGGER.log(Level.WARNING, "Listener failure.", ex);
+            }
+        });
+
+    }
+
     @SuppressWarnings( "UtilityClassWithoutPrivateConstructor" )
     private static class ControllersHolder {
 
@@ -0,0 +1,49 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2017 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.javafx.control.knobs.controller;
+
+
+import se.europeanspallationsource.javafx.control.knobs.controller.spi.Controller;
+
+
+/**
+ * The listener notified by {@link Controllers} while controllers are
+ * discovered in background.
+ * <P>
+ * <B>Note:</B> notifications are not delivered on the JavaFX thread.
+ *
+ * @author Claudio Rosati, European Spallation Source ERIC
+ * @version 1.0.0 18 Oct 2026
+ */
+public interface ControllersListener {
+
+    /**
+     * Called when the given controller was discovered and reset, and is now
+     * available through {@link Controllers#getController(String)}.
+     *
+     * @param controller The available controller.
+     */
+    public void controllerAvailable( Controller controller );
+
+    /**
+     * Called when the discovery of controllers is completed, i.e. all
+     * controllers are available. This default implementation does nothing.
+     */
+    public default void discoveryCompleted() {
+    }
+
+}
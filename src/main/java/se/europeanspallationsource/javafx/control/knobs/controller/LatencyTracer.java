@@ -0,0 +1,270 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2017 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.javafx.control.knobs.controller;
+
+
+import java.text.MessageFormat;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * Records, when enabled, the latency of the stages a physical device
+ * operation goes through, from the reception of the MIDI message up to the
+ * notification of the controllable that its target value was set.
+ * <P>
+ * Latencies are collected into logarithmic histograms (bucket {@code i}
+ * counts latencies in the [2<sup>i-1</sup>, 2<sup>i</sup>) µs range), one
+ * for the whole controller and one for each channel, without allocating
+ * memory while recording.
+ *
+ * @author Claudio Rosati, European Spallation Source ERIC
+ * @version 1.0.0 18 Oct 2026
+ */
+public class LatencyTracer {
+
+    /**
+     * Identifies the whole controller instead of a single channel.
+     */
+    public static final int ALL_CHANNELS = -1;
+
+    /**
+     * The system property that, when set to {@code true}, enables tracing
+     * at start-up.
+     */
+    public static final String TRACING_PROPERTY = "controlled-knobs.tracing";
+
+    private static final int BUCKETS = 32;
+    private static final int CHANNELS = 128;
+
+    public enum Stage {
+
+        /**
+         * From the device time-stamp to the reception of the message (only
+         * for devices supporting time-stamps, and never per channel).
+         */
+        INPUT,
+
+        /**
+         * From the reception of the message to its dispatching to the
+         * channel's controllable.
+         */
+        DISPATCH,
+
+        /**
+         * From the reception of the message to the setting of the new target
+         * value in the wrapper.
+         */
+        TARGET_SET,
+
+        /**
+         * From the reception of the message to the setting of the new target
+         * value on the JavaFX thread.
+         */
+        FX_APPLY,
+
+        /**
+         * From the reception of the message to the end of the target value
+         * set notification on the JavaFX thread.
+         */
+        TARGET_VALUE_SET
+
+    }
+
+    private volatile boolean enabled = Boolean.getBoolean(TRACING_PROPERTY);
+    private volatile AtomicLongArray histograms = null;
+
+    /**
+     * @return {@code true} if latencies are recorded.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public synchronized void setEnabled( boolean enabled ) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Discard all recorded latencies.
+     */
+    public synchronized void clear() {
+        histograms = null;
+    }
+
+    /**
+     * @param stage   The stage.
+     * @param channel The channel, or {@link #ALL_CHANNELS}.
+     * @return The number of latencies recorded for the given stage and
+     *         channel.
+     */
+    public long getCount( Stage stage, int channel ) {
+
+        long count = 0;
+
+        for ( long c : getHistogram(stage, channel) ) {
+            count += c;
+        }
+
+        return count;
+
+    }
+
+    /**
+     * @param stage   The stage.
+     * @param channel The channel, or {@link #ALL_CHANNELS}.
+     * @return A copy of the histogram of the given stage and channel.
+     */
+    public long[] getHistogram( Stage stage, int channel ) {
+
+        long[] histogram = new long[BUCKETS];
+        AtomicLongArray h = histograms;
+        int offset = offset(stage, channel);
+
+        if ( h != null && offset >= 0 ) {
+            for ( int i = 0; i < BUCKETS; i++ ) {
+                histogram[i] = h.get(offset + i);
+            }
+        }
+
+        return histogram;
+
+    }
+
+    /**
+     * @param stage      The stage.
+     * @param channel    The channel, or {@link #ALL_CHANNELS}.
+     * @param percentile The percentile, in the [0, 100] range.
+     * @return The upper bound, in microseconds, of the bucket containing the
+     *         given percentile, or 0 if nothing was recorded.
+     */
+    public long getPercentile( Stage stage, int channel, double percentile ) {
+
+        long[] histogram = getHistogram(stage, channel);
+        long count = 0;
+
+        for ( long c : histogram ) {
+            count += c;
+        }
+
+        if ( count == 0 ) {
+            return 0;
+        }
+
+        long threshold = (long) Math.ceil(count * Math.min(100.0, Math.max(0.0, percentile)) / 100.0);
+        long cumulated = 0;
+
+        for ( int i = 0; i < BUCKETS; i++ ) {
+
+            cumulated += histogram[i];
+
+            if ( cumulated >= threshold && histogram[i] > 0 ) {
+                return 1L << i;
+            }
+
+        }
+
+        return 1L << ( BUCKETS - 1 );
+
+    }
+
+    /**
+     * Record the given latency.
+     *
+     * @param stage   The stage.
+     * @param channel The channel, or {@link #ALL_CHANNELS}.
+     * @param latency The latency, in nanoseconds.
+     */
+    public void record( Stage stage, int channel, long latency ) {
+
+        if ( !enabled ) {
+            return;
+        }
+
+        AtomicLongArray h = histograms;
+
+        if ( h == null ) {
+            h = allocate();
+        }
+
+        int bucket = bucket(TimeUnit.NANOSECONDS.toMicros(latency));
+
+        h.incrementAndGet(offset(stage, ALL_CHANNELS) + bucket);
+
+        if ( channel >= 0 && channel < CHANNELS ) {
+            h.incrementAndGet(offset(stage, channel) + bucket);
+        }
+
+    }
+
+    /**
+     * @return A textual report of 50th, 99th percentiles and count for each
+     *         stage, for the whole controller and each channel with recorded
+     *         latencies.
+     */
+    public String report() {
+
+        StringBuilder builder = new StringBuilder();
+
+        for ( int channel = ALL_CHANNELS; channel < CHANNELS; channel++ ) {
+            for ( Stage stage : Stage.values() ) {
+
+                long count = getCount(stage, channel);
+
+                if ( count > 0 ) {
+                    builder.append(MessageFormat.format(
+                        "{0} {1}: count={2,number,#0} p50<{3,number,#0}us p99<{4,number,#0}us\n",
+                        channel == ALL_CHANNELS ? "all" : "channel " + channel,
+                        stage,
+                        count,
+                        getPercentile(stage, channel, 50),
+                        getPercentile(stage, channel, 99)
+                    ));
+                }
+
+            }
+        }
+
+        return builder.toString();
+
+    }
+
+    private static int bucket( long micros ) {
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(Math.max(0L, micros)));
+    }
+
+    private static int offset( Stage stage, int channel ) {
+        if ( channel == ALL_CHANNELS ) {
+            return stage.ordinal() * ( CHANNELS + 1 ) * BUCKETS;
+        } else if ( channel >= 0 && channel < CHANNELS ) {
+            return ( stage.ordinal() * ( CHANNELS + 1 ) + channel + 1 ) * BUCKETS;
+        } else {
+            return -1;
+        }
+    }
+
+    private synchronized AtomicLongArray allocate() {
+
+        if ( histograms == null ) {
+            histograms = new AtomicLongArray(Stage.values().length * ( CHANNELS + 1 ) * BUCKETS);
+        }
+
+        return histograms;
+
+    }
+
+}
@@ -18,7 +18,21 @@ package se.europeanspallationsource.javafx.control.knobs.controller.midi;
 
 
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.DoubleConsumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.sound.midi.InvalidMidiDataException;
@@ -32,51 +46,392 @@ import javax.sound.midi.ShortMessage;
 import javax.sound.midi.Synthesizer;
 import javax.sound.midi.Transmitter;
 import se.europeanspallationsource.javafx.control.knobs.controller.AbstractController;
+import se.europeanspallationsource.javafx.control.knobs.controller.Controllable;
+import se.europeanspallationsource.javafx.control.knobs.controller.LatencyTracer;
 
 
 /**
  * The base class for MIDI controllers.
+ * <P>
+ * Outbound messages are not sent on the calling thread: they are put into a
+ * lock-free queue drained by a single output thread per controller. Control
+ * change messages still pending for the same MIDI channel and controller are
+ * coalesced, so that only the latest value is sent to the device.
+ * <P>
+ * The presence of the device is periodically checked, so that it can be
+ * unplugged and plugged back in. While the device is disconnected, control
+ * change messages are kept in the queue (only the latest value for each MIDI
+ * channel and controller), and sent when the device is back.
+ * <P>
+ * Devices found by name are not opened until the first controllable is
+ * added, and the reset of the controller is deferred until then. When the
+ * {@link #IDLE_CLOSE_DELAY_PROPERTY} system property (or
+ * {@link #setIdleCloseDelay(long)}) sets a non-negative delay, devices are
+ * closed again once no controllables are attached for that long.
+ * <P>
+ * The output can be paced by a token bucket, to avoid overflowing devices
+ * with limited input bandwidth: see {@link #RATE_LIMIT_PROPERTY} and
+ * {@link #setRateLimit(int)}. Queued messages are sent in
+ * {@link MIDIPriority} order, so that operator feedback is not delayed by
+ * bulk transfers.
  *
  * @author Claudio Rosati, European Spallation Source ERIC
  * @version 1.0.0 28 Aug 2017
  */
 public abstract class AbstractMIDIController extends AbstractController {
 
+    /**
+     * The system property setting the default delay, in milliseconds, after
+     * which devices are closed once the last controllable is removed. A
+     * negative value (the default) means that devices are never closed.
+     */
+    public static final String IDLE_CLOSE_DELAY_PROPERTY = "controlled-knobs.idleCloseDelay";
+
+    /**
+     * The system property setting the default maximum number of messages
+     * sent per second to each device. {@code 0} (the default) means no limit.
+     */
+    public static final String RATE_LIMIT_PROPERTY = "controlled-knobs.midi.rateLimit";
+
+    /**
+     * The system property setting the default number of messages that can be
+     * sent in a burst when the output is paced (default 32).
+     */
+    public static final String BURST_SIZE_PROPERTY = "controlled-knobs.midi.burstSize";
+
     private static final Logger LOGGER = Logger.getLogger(AbstractMIDIController.class.getName());
 
+    /**
+     * The period of the device presence checks.
+     */
+    private static final long DEVICE_WATCH_PERIOD = 2000L;  //  ms
+
+    /**
+     * How often {@link #awaitSent(MIDIPriority, Future)} checks whether the
+     * waiting must stop.
+     */
+    private static final long AWAIT_SENT_PERIOD = 100L;  //  ms
+
+    /**
+     * The thread checking the presence of the devices of all MIDI controllers.
+     */
+    private static final ScheduledExecutorService DEVICE_WATCHER = Executors.newSingleThreadScheduledExecutor(r -> {
+
+        Thread thread = new Thread(r, "MIDI device watcher");
+
+        thread.setDaemon(true);
+
+        return thread;
+
+    });
+
+    /**
+     * Comparator ordering the ports of devices having the same name. Twin
+     * devices (same description, vendor and version) compare as equal, and
+     * keep the order in which {@link MidiSystem} enumerates them.
+     */
+    private static final Comparator<MidiDevice> DEVICE_ORDER = Comparator
+        .comparing(( MidiDevice d ) -> String.valueOf(d.getDeviceInfo().getDescription()))
+        .thenComparing(d -> String.valueOf(d.getDeviceInfo().getVendor()))
+        .thenComparing(d -> String.valueOf(d.getDeviceInfo().getVersion()));
+
+    /**
+     * Count the identical devices with the given name, i.e. the number of
+     * controllers that can be bound to them.
+     *
+     * @param deviceName The name of the devices.
+     * @return The number of devices with the given name having a "to" port.
+     */
+    protected static int countDevices( String deviceName ) {
+        return (int) findPorts(deviceName).stream().filter(p -> p.to != null).count();
+    }
+
+    /**
+     * The name of the MIDI devices, or {@code null} for injected devices.
+     */
+    private final String deviceName;
+
+    /**
+     * The index of the device among the ones having the same name.
+     */
+    private final int deviceIndex;
+
+    /**
+     * The key of the {@link DevicePorts} opened by {@link #initDevices()}.
+     * Must be accessed holding {@link #deviceLock}.
+     */
+    private String deviceKey = null;
+
     /**
      * This is the MIDI device from which data is coming.
      */
-    private MidiDevice fromDevice = null;
+    private volatile MidiDevice fromDevice = null;
 
     /**
      * This is the MIDI device to which data must be sent.
      */
-    private MidiDevice toDevice = null;
+    private volatile MidiDevice toDevice = null;
+
+    /**
+     * {@code true} once the "to" device was successfully opened: from then
+     * on control changes are queued even if the device is disconnected.
+     */
+    private volatile boolean deviceSeen = false;
+
+    /**
+     * The periodic task checking the presence of the devices.
+     */
+    private final ScheduledFuture<?> deviceWatch;
+
+    /**
+     * Guards the opening and closing of the devices.
+     */
+    private final Object deviceLock = new Object();
+
+    /**
+     * {@code true} while devices must be open, i.e. once the first
+     * controllable is added and until they are closed after being idle.
+     */
+    private volatile boolean devicesRequested;
+
+    /**
+     * {@code true} if the reset was deferred until the devices are opened.
+     */
+    private boolean resetPending;  //  Guarded by deviceLock.
+
+    /**
+     * The task closing the devices when no controllables are attached.
+     */
+    private ScheduledFuture<?> idleClose = null;  //  Guarded by deviceLock.
+    private volatile long idleCloseDelay = Long.getLong(IDLE_CLOSE_DELAY_PROPERTY, -1L);
 
     /**
      * The {@link Receiver} to which sending MIDI data.
      */
-    private Receiver toReceiver = null;
+    private volatile Receiver toReceiver = null;
+
+    /**
+     * The queue of messages waiting to be sent by the {@link #writer} thread.
+     */
+    private final MIDIOutputQueue outputQueue = new MIDIOutputQueue();
+
+    /**
+     * The only thread sending messages to {@link #toReceiver}.
+     */
+    private final Thread writer;
+    private volatile boolean writerRunning = true;
+    private volatile boolean writerWaiting = false;
+
+    /**
+     * The message reused by the {@link #writer} thread to send coalesced
+     * control changes. Receivers are not expected to keep a reference to
+     * the sent messages.
+     */
+    private final ShortMessage writerMessage = new ShortMessage();
+
+    /**
+     * The token bucket pacing the {@link #writer} thread.
+     */
+    private volatile int burstSize = Math.max(1, Integer.getInteger(BURST_SIZE_PROPERTY, 32));
+    private volatile int rateLimit = Math.max(0, Integer.getInteger(RATE_LIMIT_PROPERTY, 0));
+    private double tokens = 0.0;          //  Accessed by the writer thread only.
+    private long tokensRefillTime = 0L;   //  Accessed by the writer thread only.
 
     /**
-     * Create a new instance of this abstract controller.
+     * Create a new instance of this abstract controller, bound to the first
+     * device whose name is the given identifier.
      *
-     * @param identifier The controller's unique identifier.
+     * @param identifier The controller's unique identifier, and the name of
+     *                   its MIDI device.
      */
     public AbstractMIDIController( String identifier ) {
+        this(identifier, identifier, 0);
+    }
+
+    /**
+     * Create a new instance of this abstract controller, bound to the
+     * {@code deviceIndex}-th of the identical devices with the given name.
+     *
+     * @param identifier  The controller's unique identifier.
+     * @param deviceName  The name of the MIDI device.
+     * @param deviceIndex The index of the device among the ones with the same
+     *                    name (see {@link #countDevices(String)}).
+     */
+    protected AbstractMIDIController( String identifier, String deviceName, int deviceIndex ) {
+
+        super(identifier);
+
+        this.deviceName = deviceName;
+        this.deviceIndex = deviceIndex;
+
+        devicesRequested = false;
+        resetPending = true;
+
+        writer = createWriter(identifier);
+        deviceWatch = DEVICE_WATCHER.scheduleWithFixedDelay(this::watchDevices, DEVICE_WATCH_PERIOD, DEVICE_WATCH_PERIOD, TimeUnit.MILLISECONDS);
+
+    }
+
+    /**
+     * Create a new instance of this abstract controller bound to the given
+     * devices, instead of the ones found in {@link MidiSystem} by name (e.g.
+     * an in-process {@link LoopbackMIDIDevice} for testing and benchmarking).
+     * The presence of such devices is not watched.
+     *
+     * @param identifier The controller's unique identifier.
+     * @param fromDevice The MIDI device from which data is coming.
+     * @param toDevice   The MIDI device to which data must be sent.
+     */
+    protected AbstractMIDIController( String identifier, MidiDevice fromDevice, MidiDevice toDevice ) {
+
         super(identifier);
-        initDevices(identifier);
+
+        this.deviceName = null;
+        this.deviceIndex = 0;
+        this.fromDevice = fromDevice;
+        this.toDevice = toDevice;
+
+        devicesRequested = true;
+        resetPending = false;
+
+        openDevices();
+
+        writer = createWriter(identifier);
+        deviceWatch = null;
+
+    }
+
+    /**
+     * Open the devices, if not already open, before adding the given
+     * controllable.
+     *
+     * @param controllable The object to be controlled by this controller.
+     */
+    @Override
+    public void add( Controllable controllable ) {
+
+        requestDevices();
+
+        super.add(controllable);
+
     }
 
     @Override
     public void dispose() {
+
+        if ( deviceWatch != null ) {
+            deviceWatch.cancel(false);
+        }
+
         super.dispose();
+
+        synchronized ( deviceLock ) {
+            cancelIdleClose();
+        }
+
+        stopWriter();
         closeDevices();
+
+    }
+
+    /**
+     * @return The delay, in milliseconds, after which devices are closed once
+     *         the last controllable is removed, or a negative value if devices
+     *         are never closed.
+     */
+    public long getIdleCloseDelay() {
+        return idleCloseDelay;
+    }
+
+    /**
+     * @param idleCloseDelay The delay, in milliseconds, after which devices
+     *                       are closed once the last controllable is removed.
+     *                       A negative value means never.
+     */
+    public void setIdleCloseDelay( long idleCloseDelay ) {
+        this.idleCloseDelay = idleCloseDelay;
+    }
+
+    /**
+     * @return The number of messages that can be sent in a burst when the
+     *         output is paced.
+     */
+    public int getBurstSize() {
+        return burstSize;
+    }
+
+    /**
+     * @param burstSize The number of messages that can be sent in a burst
+     *                  when the output is paced. Must be positive.
+     */
+    public void setBurstSize( int burstSize ) {
+
+        if ( burstSize < 1 ) {
+            throw new IllegalArgumentException(MessageFormat.format("Burst size must be positive [{0}].", burstSize));
+        }
+
+        this.burstSize = burstSize;
+
+    }
+
+    /**
+     * @return The maximum number of messages sent per second to the device,
+     *         or {@code 0} if the output is not paced.
+     */
+    public int getRateLimit() {
+        return rateLimit;
+    }
+
+    /**
+     * @param rateLimit The maximum number of messages sent per second to the
+     *                  device, or {@code 0} to not pace the output.
+     */
+    public void setRateLimit( int rateLimit ) {
+
+        if ( rateLimit < 0 ) {
+            throw new IllegalArgumentException(MessageFormat.format("Negative rate limit [{0}].", rateLimit));
+        }
+
+        this.rateLimit = rateLimit;
+
+        LockSupport.unpark(writer);
+
+    }
+
+    /**
+     * @return {@code true} if the MIDI "to" device is connected and ready to
+     *         receive messages.
+     */
+    public boolean isConnected() {
+        return toReceiver != null;
+    }
+
+    /**
+     * Schedule the closing of the devices when the last controllable is
+     * removed, if {@link #getIdleCloseDelay()} is not negative.
+     *
+     * @param controllable The object controlled by this controller.
+     */
+    @Override
+    public void remove( Controllable controllable ) {
+
+        super.remove(controllable);
+
+        long delay = idleCloseDelay;
+
+        if ( delay >= 0 && getControllables().isEmpty() ) {
+            synchronized ( deviceLock ) {
+                cancelIdleClose();
+                idleClose = DEVICE_WATCHER.schedule(this::closeIdleDevices, delay, TimeUnit.MILLISECONDS);
+            }
+        }
+
     }
 
     /**
-     * Default implementation sending MIDI System Reset message to the device.
+     * Default implementation sending MIDI System Reset message to the device,
+     * with {@link MIDIPriority#FEEDBACK} priority so that it is not overtaken
+     * by the messages queued after it.
      * 
      * @return {@code true} on success.
      */
@@ -85,6 +440,38 @@ public abstract class AbstractMIDIController extends AbstractController {
         return send(ShortMessage.SYSTEM_RESET, -1);
     }
 
+    /**
+     * If the devices are not open, the reset is deferred until they are
+     * opened, and the returned future is immediately completed with
+     * {@code true}.
+     *
+     * @param progressListener If not {@code null}, it will be notified of the
+     *                         reset progress, in the [0, 1] range.
+     * @return A future completed with {@code true} on success.
+     */
+    @Override
+    public CompletableFuture<Boolean> resetAsync( DoubleConsumer progressListener ) {
+
+        registerMetrics();
+
+        synchronized ( deviceLock ) {
+            if ( !devicesRequested ) {
+
+                resetPending = true;
+
+                if ( progressListener != null ) {
+                    progressListener.accept(1.0);
+                }
+
+                return CompletableFuture.completedFuture(true);
+
+            }
+        }
+
+        return super.resetAsync(progressListener);
+
+    }
+
     @Override
     @SuppressWarnings( "FinalizeDeclaration" )
     protected void finalize() throws Throwable {
@@ -103,19 +490,62 @@ public abstract class AbstractMIDIController extends AbstractController {
      */
     protected abstract void midiMessageReceived( MidiMessage message, long timeStamp );
 
+    /**
+     * Called when the MIDI device is plugged in after the controller was
+     * created, usually after being unplugged. Subclasses should send again the
+     * state of the attached controllables, because the device one is unknown.
+     * <P>
+     * This default implementation does nothing.
+     */
+    protected void deviceReconnected() {
+    }
+
     /**
      * Sends a MIDI message and time-stamp to the "to" receiver. If time-stamping
      * is not supported by this receiver, the time-stamp value should be -1.
+     * <P>
+     * The message is queued and sent asynchronously by the output thread.
+     * Control change messages replace the ones still pending for the same
+     * MIDI channel and controller number.
      *
      * @param message   The MIDI message to be sent.
      * @param timeStamp The timestamp for the message, in microseconds.
-     * @return {@code true} on success.
+     * @return {@code true} on success (i.e. the message was queued).
      */
     protected boolean send( MidiMessage message, long timeStamp ) {
-        
-        if ( toReceiver != null ) {
-            toReceiver.send(message, timeStamp);
+        return send(MIDIPriority.FEEDBACK, message, timeStamp);
+    }
+
+    /**
+     * Sends a MIDI message and time-stamp to the "to" receiver, with the given
+     * priority. If time-stamping is not supported by this receiver, the
+     * time-stamp value should be -1.
+     *
+     * @param priority  The message priority.
+     * @param message   The MIDI message to be sent.
+     * @param timeStamp The timestamp for the message, in microseconds.
+     * @return {@code true} on success (i.e. the message was queued).
+     */
+    protected boolean send( MIDIPriority priority, MidiMessage message, long timeStamp ) {
+
+        if ( toReceiver != null || ( deviceSeen && MIDIOutputQueue.isCoalescable(message) ) ) {
+
+            if ( MIDIOutputQueue.isCoalescable(message) ) {
+
+                ShortMessage smsg = (ShortMessage) message;
+
+                outputQueue.offer(smsg.getChannel(), smsg.getData1(), smsg.getData2(), timeStamp, priority);
+
+            } else {
+                outputQueue.offerOrdered(message, timeStamp, priority);
+            }
+
+            if ( writerWaiting ) {
+                LockSupport.unpark(writer);
+            }
+
             return true;
+
         } else if ( toDevice != null ) {
             LOGGER.fine(MessageFormat.format(
                 "MIDI message cannot be sent. Receiver not available for MIDI \"to\" device {0}. {2}",
@@ -126,6 +556,8 @@ public abstract class AbstractMIDIController extends AbstractController {
             LOGGER.fine("MIDI message cannot be sent. MIDI \"to\" device doesn't exist.");
         }
 
+        getMetrics().messageDropped();
+
         return false;
 
     }
@@ -164,6 +596,10 @@ public abstract class AbstractMIDIController extends AbstractController {
      */
     protected boolean send( int midiStatus, int data1, int data2, long timeStamp ) {
 
+        if ( ( midiStatus & 0xF0 ) == ShortMessage.CONTROL_CHANGE ) {
+            return send(ShortMessage.CONTROL_CHANGE, midiStatus & 0x0F, data1, data2, timeStamp);
+        }
+
         try {
             return send(new ShortMessage(midiStatus, data1, data2), timeStamp);
         } catch ( InvalidMidiDataException ex ) {
@@ -187,9 +623,46 @@ public abstract class AbstractMIDIController extends AbstractController {
      * @see ShortMessage
      */
     protected boolean send( int midiCommand, int midiChannel, int data1, int data2, long timeStamp ) {
+        return send(MIDIPriority.FEEDBACK, midiCommand, midiChannel, data1, data2, timeStamp);
+    }
+
+    /**
+     * Sends a MIDI message and time-stamp to the "to" receiver, with the given
+     * priority. If time-stamping is not supported by this receiver, the
+     * time-stamp value should be -1.
+     *
+     * @param priority    The message priority.
+     * @param midiCommand The MIDI command represented by the message.
+     * @param midiChannel The MIDI channel associated with the message.
+     * @param data1       The first data byte.
+     * @param data2       The second data byte.
+     * @param timeStamp   The timestamp for the message, in microseconds.
+     * @return {@code true} on success.
+     * @see ShortMessage
+     */
+    protected boolean send( MIDIPriority priority, int midiCommand, int midiChannel, int data1, int data2, long timeStamp ) {
+
+        if ( midiCommand == ShortMessage.CONTROL_CHANGE ) {
+            //  Fast path: no MidiMessage is allocated.
+            if ( ( midiChannel & ~0x0F ) != 0 || ( data1 & ~0x7F ) != 0 || ( data2 & ~0x7F ) != 0 ) {
+                LOGGER.warning(MessageFormat.format("Invalid control change message [channel: {0}, data1: {1}, data2: {2}].", midiChannel, data1, data2));
+                getMetrics().messageDropped();
+                return false;
+            } else if ( toReceiver != null || deviceSeen ) {
+
+                outputQueue.offer(midiChannel, data1, data2, timeStamp, priority);
+
+                if ( writerWaiting ) {
+                    LockSupport.unpark(writer);
+                }
+
+                return true;
+
+            }
+        }
 
         try {
-            return send(new ShortMessage(midiCommand, midiChannel, data1, data2), timeStamp);
+            return send(priority, new ShortMessage(midiCommand, midiChannel, data1, data2), timeStamp);
         } catch ( InvalidMidiDataException ex ) {
             LOGGER.log(Level.WARNING, "This exception should never happens.", ex);
         }
@@ -198,69 +671,440 @@ public abstract class AbstractMIDIController extends AbstractController {
 
     }
 
-    private void closeDevices() {
+    /**
+     * Sends a MIDI message and time-stamp to the "to" receiver, with
+     * {@link MIDIPriority#FEEDBACK} priority, without coalescing it with
+     * pending ones. It is sent after all the messages of the same priority
+     * queued before it, and before all the messages of any priority queued
+     * after it, control changes included.
+     *
+     * @param midiCommand The MIDI command represented by the message.
+     * @param midiChannel The MIDI channel associated with the message.
+     * @param data1       The first data byte.
+     * @param data2       The second data byte.
+     * @param timeStamp   The timestamp for the message, in microseconds.
+     * @return {@code true} on success (i.e. the message was queued).
+     * @see ShortMessage
+     */
+    protected boolean sendInOrder( int midiCommand, int midiChannel, int data1, int data2, long timeStamp ) {
+        return sendInOrder(MIDIPriority.FEEDBACK, midiCommand, midiChannel, data1, data2, timeStamp);
+    }
 
-        if ( fromDevice != null && fromDevice.isOpen() ) {
-            fromDevice.close();
-        }
+    /**
+     * Sends a MIDI message and time-stamp to the "to" receiver, with the given
+     * priority, without coalescing it with pending ones. It is sent after all
+     * the messages of the same priority queued before it, and before all the
+     * messages of the same or lower priority queued after it, control changes
+     * included. Messages of higher priority can overtake it.
+     *
+     * @param priority    The message priority.
+     * @param midiCommand The MIDI command represented by the message.
+     * @param midiChannel The MIDI channel associated with the message.
+     * @param data1       The first data byte.
+     * @param data2       The second data byte.
+     * @param timeStamp   The timestamp for the message, in microseconds.
+     * @return {@code true} on success (i.e. the message was queued).
+     * @see ShortMessage
+     */
+    protected boolean sendInOrder( MIDIPriority priority, int midiCommand, int midiChannel, int data1, int data2, long timeStamp ) {
 
-        if ( toDevice != null && toDevice.isOpen() ) {
-            toDevice.close();
-        }
+        if ( toReceiver != null ) {
+            try {
 
-    }
+                outputQueue.offerOrdered(new ShortMessage(midiCommand, midiChannel, data1, data2), timeStamp, priority);
 
-    private String deviceInfoForLogger( MidiDevice device ) {
-        return deviceInfoForLogger(device.getDeviceInfo(), device.isOpen() ? "OPEN" : "CLOSED");
-    }
+                if ( writerWaiting ) {
+                    LockSupport.unpark(writer);
+                }
+
+                return true;
+
+            } catch ( InvalidMidiDataException ex ) {
+                LOGGER.log(Level.WARNING, "This exception should never happens.", ex);
+                return false;
+            }
+        } else {
+            return send(priority, midiCommand, midiChannel, data1, data2, timeStamp);
+        }
 
-    private String deviceInfoForLogger( MidiDevice.Info info ) {
-        return deviceInfoForLogger(info, "–");
     }
 
-    private String deviceInfoForLogger( MidiDevice.Info info, String status ) {
-        return MessageFormat.format(
-            "\n"
-            + "\t     Device: {0}\n"
-            + "\tDescription: {1}\n"
-            + "\t     Vendor: {2}\n"
-            + "\t    Version: {3}\n"
-            + "\t     Status: {4}",
-            info.getName(),
-            info.getDescription(),
-            info.getVendor(),
-            info.getVersion(),
-            status
-        );
+    /**
+     * Wait until all the messages queued so far with the given priority (and
+     * so the ones with higher priority queued before them) are sent to the
+     * device. Must not be called by the JavaFX thread.
+     *
+     * @param priority The priority of the messages to be waited for.
+     * @param handle   If not {@code null}, the waiting stops as soon as it is
+     *                 cancelled.
+     * @return {@code true} if the messages were sent, {@code false} if the
+     *         device is disconnected, the waiting was cancelled or the thread
+     *         interrupted.
+     */
+    protected boolean awaitSent( MIDIPriority priority, Future<?> handle ) {
+
+        if ( toReceiver == null ) {
+            return false;
+        }
+
+        CountDownLatch sent = new CountDownLatch(1);
+
+        outputQueue.offerAction(sent::countDown, priority);
+
+        if ( writerWaiting ) {
+            LockSupport.unpark(writer);
+        }
+
+        try {
+            while ( !sent.await(AWAIT_SENT_PERIOD, TimeUnit.MILLISECONDS) ) {
+                if ( toReceiver == null || ( handle != null && handle.isCancelled() ) ) {
+                    return false;
+                }
+            }
+        } catch ( InterruptedException ex ) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+
+        return true;
+
+    }
+
+    /**
+     * Wait until a token is available in the bucket pacing the output, and
+     * consume it. Returns immediately if the output is not paced or the
+     * {@link #writer} is stopping. Called by the {@link #writer} thread only.
+     */
+    private void acquireToken() {
+
+        int rate = rateLimit;
+
+        while ( rate > 0 && writerRunning ) {
+
+            long now = System.nanoTime();
+
+            tokens = Math.min(burstSize, tokens + ( now - tokensRefillTime ) * rate / (double) TimeUnit.SECONDS.toNanos(1));
+            tokensRefillTime = now;
+
+            if ( tokens >= 1.0 ) {
+                tokens -= 1.0;
+                return;
+            }
+
+            LockSupport.parkNanos(this, (long) ( ( 1.0 - tokens ) * TimeUnit.SECONDS.toNanos(1) / rate ));
+
+            rate = rateLimit;
+
+        }
+
+    }
+
+    /**
+     * Must be called holding {@link #deviceLock}.
+     */
+    private void cancelIdleClose() {
+        if ( idleClose != null ) {
+            idleClose.cancel(false);
+            idleClose = null;
+        }
+    }
+
+    /**
+     * Called by {@link #DEVICE_WATCHER} when no controllables were attached
+     * for {@link #getIdleCloseDelay()} milliseconds.
+     */
+    private void closeIdleDevices() {
+        synchronized ( deviceLock ) {
+            if ( devicesRequested && getControllables().isEmpty() ) {
+
+                LOGGER.info(MessageFormat.format("Closing idle MIDI device \"{0}\".", getIdentifier()));
+
+                devicesRequested = false;
+                deviceSeen = false;
+                toReceiver = null;
+                resetPending = true;
+                idleClose = null;
+
+                closeDevices();
+
+                if ( deviceWatch != null ) {
+                    fromDevice = null;
+                    toDevice = null;
+                }
+
+            }
+        }
+    }
+
+    private void closeDevices() {
+
+        MidiDevice from = fromDevice;
+        MidiDevice to = toDevice;
+
+        if ( from != null && from.isOpen() ) {
+            from.close();
+        }
+
+        if ( to != null && to.isOpen() ) {
+            to.close();
+        }
+
+    }
+
+    /**
+     * Send the given message to {@link #toReceiver}. Called by the
+     * {@link #writer} thread only.
+     */
+    private void transmit( MidiMessage message, long timeStamp ) {
+
+        Receiver receiver = toReceiver;
+
+        if ( receiver == null ) {
+            getMetrics().messageDropped();
+        } else {
+            try {
+                receiver.send(message, timeStamp);
+                getMetrics().messageSent();
+            } catch ( RuntimeException ex ) {
+                LOGGER.log(Level.WARNING, "Unable to send MIDI message.", ex);
+            }
+        }
+
     }
 
-    private void initDevices( String identifier ) {
+    /**
+     * Send the message identified by the given queue entry. Called by the
+     * {@link #writer} thread only.
+     *
+     * @return {@code false} if nothing was sent, i.e. the entry was a stale
+     *         one, whose message was already sent, or an action.
+     */
+    private boolean transmit( int entry ) {
+
+        if ( entry < 0 ) {
 
-        MidiDevice.Info[] midiDeviceInfos = MidiSystem.getMidiDeviceInfo();
+            MIDIOutputQueue.OrderedMessage omsg = outputQueue.pollOrdered();
+
+            if ( omsg == null ) {
+                return false;
+            } else if ( omsg.action != null ) {
+                //  Nothing is sent.
+                omsg.action.run();
+                return false;
+            } else {
+                getMetrics().queueWaited(System.nanoTime() - omsg.enqueueTime);
+                transmit(omsg.message, omsg.timeStamp);
+                return true;
+            }
+
+        } else {
+
+            long enqueueTime = outputQueue.enqueueTime(entry);
+            long value = outputQueue.take(entry);
+
+            if ( value != 0L ) {
+
+                getMetrics().queueWaited(System.nanoTime() - enqueueTime);
 
-        for ( MidiDevice.Info info : midiDeviceInfos ) {
-            if ( Objects.equals(identifier, info.getName()) ) {
+                try {
+
+                    writerMessage.setMessage(
+                        ShortMessage.CONTROL_CHANGE,
+                        MIDIOutputQueue.channelOf(entry),
+                        MIDIOutputQueue.data1Of(entry),
+                        MIDIOutputQueue.data2Of(value)
+                    );
+
+                    transmit(writerMessage, MIDIOutputQueue.timeStampOf(value));
+
+                } catch ( InvalidMidiDataException ex ) {
+                    LOGGER.log(Level.WARNING, "This exception should never happens.", ex);
+                }
+
+                return true;
+
+            }
+
+        }
+
+        return false;
+
+    }
+
+    /**
+     * Stop the {@link #writer} thread, after all pending messages are sent.
+     */
+    private void stopWriter() {
+
+        writerRunning = false;
+
+        LockSupport.unpark(writer);
+
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(1));
+        } catch ( InterruptedException ex ) {
+            Thread.currentThread().interrupt();
+        }
+
+    }
+
+    /**
+     * The {@link #writer} thread body: drains {@link #outputQueue}, parking
+     * when it is empty, and pacing the output when a rate limit is set.
+     */
+    private void writeLoop() {
+        while ( true ) {
+
+            if ( toReceiver == null ) {
+
+                if ( !writerRunning ) {
+                    return;
+                }
+
+                //  Device disconnected: keep the messages queued.
+                writerWaiting = true;
+
+                if ( toReceiver == null && writerRunning ) {
+                    LockSupport.park(this);
+                }
+
+                writerWaiting = false;
+
+                continue;
+
+            }
+
+            if ( outputQueue.isEmpty() ) {
+
+                if ( !writerRunning ) {
+                    return;
+                }
+
+                writerWaiting = true;
+
+                if ( outputQueue.isEmpty() && writerRunning ) {
+                    LockSupport.park(this);
+                }
+
+                writerWaiting = false;
+
+            } else {
+
+                acquireToken();
+
+                //  Polled after the token is acquired, so that messages
+                //  queued meanwhile with higher priority are sent first.
+                if ( !transmit(outputQueue.poll()) && rateLimit > 0 ) {
+                    //  Stale entry: nothing was sent, give the token back
+                    //  without exceeding the bucket capacity.
+                    tokens = Math.min(burstSize, tokens + 1.0);
+                }
+
+            }
+
+        }
+    }
+
+    /**
+     * Called periodically by {@link #DEVICE_WATCHER} to detect when the device
+     * is unplugged or plugged back in.
+     */
+    private void watchDevices() {
+        synchronized ( deviceLock ) {
+            if ( devicesRequested ) {
+                checkDevices();
+            }
+        }
+    }
+
+    /**
+     * Must be called holding {@link #deviceLock}.
+     */
+    private void checkDevices() {
+        try {
+
+            String identifier = getIdentifier();
+            List<DevicePorts> ports = findPorts(deviceName);
+            boolean present = deviceIndex < ports.size()
+                           && ports.get(deviceIndex).to != null
+                           && ( toDevice == null || ports.get(deviceIndex).key.equals(deviceKey) );
+
+            if ( toReceiver != null && !present ) {
+
+                LOGGER.info(MessageFormat.format("MIDI device \"{0}\" disconnected.", identifier));
+
+                toReceiver = null;
+
+                closeDevices();
+
+                fromDevice = null;
+                toDevice = null;
+
+            } else if ( toReceiver == null && present ) {
+
+                closeDevices();
+
+                fromDevice = null;
+                toDevice = null;
+
+                initDevices();
+
+                if ( toReceiver != null ) {
+
+                    LOGGER.info(MessageFormat.format("MIDI device \"{0}\" connected.", identifier));
+                    LockSupport.unpark(writer);
+                    performPendingReset();
+                    deviceReconnected();
+
+                }
+
+            }
+
+        } catch ( RuntimeException ex ) {
+            LOGGER.log(Level.WARNING, "Unable to check MIDI devices.", ex);
+        }
+    }
+
+    /**
+     * Find all the MIDI ports belonging to devices with the given name, and
+     * pair the "from" and "to" ports of each device. A port having both
+     * transmitters and receivers is paired with itself; the other ones are
+     * paired by their position among the ports of the same direction.
+     * <p>
+     * Devices are sorted by description, vendor and version, so that the same
+     * index refers to the same physical device as long as the set of plugged
+     * devices doesn't change. {@link javax.sound.midi} exposes no serial
+     * number: twin devices (having the same name, description, vendor and
+     * version) are told apart only by their enumeration order, hence when
+     * one of them is unplugged the other one could take its index.</p>
+     *
+     * @param deviceName The name of the devices.
+     * @return The ports of the found devices.
+     */
+    private static List<DevicePorts> findPorts( String deviceName ) {
+
+        List<MidiDevice> bidirectional = new ArrayList<>(2);
+        List<MidiDevice> from = new ArrayList<>(2);
+        List<MidiDevice> to = new ArrayList<>(2);
+
+        for ( MidiDevice.Info info : MidiSystem.getMidiDeviceInfo() ) {
+            if ( Objects.equals(deviceName, info.getName()) ) {
                 try {
 
                     MidiDevice device = MidiSystem.getMidiDevice(info);
 
                     if ( !( device instanceof Sequencer ) && !( device instanceof Synthesizer ) ) {
                         //  The device is a MIDI port.
-                        if ( fromDevice == null && device.getMaxTransmitters() != 0 ) {
-                            fromDevice = device;
-                        } else if ( toDevice == null && device.getMaxReceivers() != 0 ) {
-                            toDevice = device;
-                        } else if ( fromDevice != null || toDevice != null ) {
-                            LOGGER.fine(MessageFormat.format(
-                                "Device \"{0}\" already found, the following is skipped [{1}] {2}",
-                                identifier,
-                                info.getClass().getName(),
-                                deviceInfoForLogger(info)
-                            ));
+                        if ( device.getMaxTransmitters() != 0 && device.getMaxReceivers() != 0 ) {
+                            bidirectional.add(device);
+                        } else if ( device.getMaxTransmitters() != 0 ) {
+                            from.add(device);
+                        } else if ( device.getMaxReceivers() != 0 ) {
+                            to.add(device);
                         } else {
                             LOGGER.fine(MessageFormat.format(
                                 "Device \"{0}\" has no transmitters nor receivers [{1}] {2}",
-                                identifier,
+                                deviceName,
                                 info.getClass().getName(),
                                 deviceInfoForLogger(info)
                             ));
@@ -268,7 +1112,7 @@ public abstract class AbstractMIDIController extends AbstractController {
                     } else {
                         LOGGER.fine(MessageFormat.format(
                             "Device \"{0}\" is not a MIDI port [{1}] {2}",
-                            identifier,
+                            deviceName,
                             info.getClass().getName(),
                             deviceInfoForLogger(info)
                         ));
@@ -285,6 +1129,141 @@ public abstract class AbstractMIDIController extends AbstractController {
             }
         }
 
+        from.sort(DEVICE_ORDER);
+        to.sort(DEVICE_ORDER);
+
+        List<DevicePorts> ports = new ArrayList<>(bidirectional.size() + Math.max(from.size(), to.size()));
+
+        bidirectional.forEach(device -> ports.add(new DevicePorts(device, device)));
+
+        for ( int i = 0; i < Math.max(from.size(), to.size()); i++ ) {
+            ports.add(new DevicePorts(
+                ( i < from.size() ) ? from.get(i) : null,
+                ( i < to.size() ) ? to.get(i) : null
+            ));
+        }
+
+        //  Stable sort: twin devices keep their enumeration order.
+        ports.sort(Comparator.comparing(DevicePorts::device, DEVICE_ORDER));
+
+        Map<String, Integer> twins = new HashMap<>(4);
+
+        ports.forEach(p -> p.key = MessageFormat.format(
+            "{0}#{1}",
+            p.id(),
+            twins.merge(p.id(), 1, Integer::sum)
+        ));
+
+        return ports;
+
+    }
+
+    private Thread createWriter( String identifier ) {
+
+        Thread thread = new Thread(this::writeLoop, "MIDI output - " + identifier);
+
+        thread.setDaemon(true);
+        thread.start();
+
+        return thread;
+
+    }
+
+    /**
+     * Perform the reset deferred until the devices were opened. Must be
+     * called holding {@link #deviceLock}.
+     */
+    private void performPendingReset() {
+        if ( resetPending ) {
+
+            resetPending = false;
+
+            if ( !reset() ) {
+                LOGGER.warning(MessageFormat.format("Resetting controller \"{0}\" failed!", getIdentifier()));
+            }
+
+        }
+    }
+
+    /**
+     * Open the devices, if not already open, and perform the deferred reset.
+     */
+    private void requestDevices() {
+        synchronized ( deviceLock ) {
+
+            cancelIdleClose();
+
+            if ( !devicesRequested ) {
+
+                devicesRequested = true;
+
+                if ( deviceWatch != null ) {
+                    initDevices();
+                } else {
+                    openDevices();
+                }
+
+                if ( toReceiver != null ) {
+                    LockSupport.unpark(writer);
+                    performPendingReset();
+                }
+
+            }
+
+        }
+    }
+
+    private static String deviceInfoForLogger( MidiDevice device ) {
+        return deviceInfoForLogger(device.getDeviceInfo(), device.isOpen() ? "OPEN" : "CLOSED");
+    }
+
+    private static String deviceInfoForLogger( MidiDevice.Info info ) {
+        return deviceInfoForLogger(info, "–");
+    }
+
+    private static String deviceInfoForLogger( MidiDevice.Info info, String status ) {
+        return MessageFormat.format(
+            "\n"
+            + "\t     Device: {0}\n"
+            + "\tDescription: {1}\n"
+            + "\t     Vendor: {2}\n"
+            + "\t    Version: {3}\n"
+            + "\t     Status: {4}",
+            info.getName(),
+            info.getDescription(),
+            info.getVendor(),
+            info.getVersion(),
+            status
+        );
+    }
+
+    /**
+     * Find the "from" and "to" ports of the {@link #deviceIndex}-th device
+     * named {@link #deviceName}, and open them.
+     */
+    private void initDevices() {
+
+        List<DevicePorts> ports = findPorts(deviceName);
+
+        if ( deviceIndex < ports.size() ) {
+
+            DevicePorts device = ports.get(deviceIndex);
+
+            fromDevice = device.from;
+            toDevice = device.to;
+            deviceKey = device.key;
+
+        }
+
+        openDevices();
+
+    }
+
+    /**
+     * Open {@link #fromDevice} and {@link #toDevice}, if not {@code null}.
+     */
+    private void openDevices() {
+
         if ( fromDevice != null ) {
             try {
 
@@ -301,6 +1280,18 @@ public abstract class AbstractMIDIController extends AbstractController {
 
                         @Override
                         public void send( MidiMessage message, long timeStamp ) {
+                            getMetrics().messageReceived();
+
+                            MidiDevice device = fromDevice;
+
+                            if ( timeStamp >= 0 && device != null && getMetrics().getLatencyTracer().isEnabled() ) {
+                                getMetrics().getLatencyTracer().record(
+                                    LatencyTracer.Stage.INPUT,
+                                    LatencyTracer.ALL_CHANNELS,
+                                    TimeUnit.MICROSECONDS.toNanos(device.getMicrosecondPosition() - timeStamp)
+                                );
+                            }
+
                             midiMessageReceived(message, timeStamp);
                         }
                     });
@@ -333,6 +1324,7 @@ public abstract class AbstractMIDIController extends AbstractController {
 
                 try {
                     toReceiver = toDevice.getReceiver();
+                    deviceSeen = true;
                 } catch ( MidiUnavailableException ex ) {
                     LOGGER.fine(MessageFormat.format(
                         "Receiver not available for MIDI \"to\" device {0} [{1}] {2}",
@@ -356,4 +1348,37 @@ public abstract class AbstractMIDIController extends AbstractController {
 
     }
 
+    /**
+     * The paired "from" and "to" ports of a device.
+     */
+    private static final class DevicePorts {
+
+        final MidiDevice from;
+        /**
+         * Identifies the device among the ones having the same name: its
+         * description, vendor and version, followed by its position among
+         * its twins.
+         */
+        String key;
+        final MidiDevice to;
+
+        DevicePorts( MidiDevice from, MidiDevice to ) {
+            this.from = from;
+            this.to = to;
+        }
+
+        MidiDevice device() {
+            return ( to != null ) ? to : from;
+        }
+
+        String id() {
+
+            MidiDevice.Info info = device().getDeviceInfo();
+
+            return MessageFormat.format("{0}/{1}/{2}", info.getDescription(), info.getVendor(), info.getVersion());
+
+        }
+
+    }
+
 }
@@ -0,0 +1,210 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2017 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.javafx.control.knobs.controller.midi;
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sound.midi.MidiDevice;
+import javax.sound.midi.MidiMessage;
+import javax.sound.midi.Receiver;
+import javax.sound.midi.Transmitter;
+
+
+/**
+ * An in-process MIDI device, to be used both as "from" and "to" device of an
+ * {@link AbstractMIDIController} when no hardware is available (e.g. in tests
+ * and benchmarks).
+ * <P>
+ * Messages injected with {@link #inject(MidiMessage, long)} are delivered,
+ * on the calling thread, to the receivers of this device's transmitters,
+ * as if they were coming from a physical device. Messages sent to this
+ * device's receivers are passed to {@link #received(MidiMessage, long)}.
+ *
+ * @author Claudio Rosati, European Spallation Source ERIC
+ * @version 1.0.0 18 Oct 2026
+ */
+public class LoopbackMIDIDevice implements MidiDevice {
+
+    private final Info info;
+    private volatile boolean open = false;
+    private final AtomicLong receivedMessages = new AtomicLong();
+    private final List<Receiver> receivers = new CopyOnWriteArrayList<>();
+    private final long startTime = System.nanoTime();
+    private final List<Transmitter> transmitters = new CopyOnWriteArrayList<>();
+
+    /**
+     * Create a new loopback device with the given name.
+     *
+     * @param name The device name, i.e. the identifier of the controller
+     *             using it.
+     */
+    public LoopbackMIDIDevice( String name ) {
+        this.info = new Info(name, "European Spallation Source ERIC", "In-process loopback MIDI device", "1.0.0") {
+        };
+    }
+
+    @Override
+    public void close() {
+
+        open = false;
+
+        new ArrayList<>(transmitters).forEach(Transmitter::close);
+        new ArrayList<>(receivers).forEach(Receiver::close);
+
+    }
+
+    @Override
+    public Info getDeviceInfo() {
+        return info;
+    }
+
+    @Override
+    public int getMaxReceivers() {
+        return -1;
+    }
+
+    @Override
+    public int getMaxTransmitters() {
+        return -1;
+    }
+
+    @Override
+    public long getMicrosecondPosition() {
+        return ( System.nanoTime() - startTime ) / 1000L;
+    }
+
+    @Override
+    public Receiver getReceiver() {
+
+        Receiver receiver = new Receiver() {
+            @Override
+            public void close() {
+                receivers.remove(this);
+            }
+
+            @Override
+            public void send( MidiMessage message, long timeStamp ) {
+                if ( open ) {
+                    receivedMessages.incrementAndGet();
+                    received(message, timeStamp);
+                }
+            }
+        };
+
+        receivers.add(receiver);
+
+        return receiver;
+
+    }
+
+    /**
+     * @return The number of messages sent to this device's receivers.
+     */
+    public long getReceivedMessages() {
+        return receivedMessages.get();
+    }
+
+    @Override
+    public List<Receiver> getReceivers() {
+        return Collections.unmodifiableList(receivers);
+    }
+
+    @Override
+    public Transmitter getTransmitter() {
+
+        Transmitter transmitter = new Transmitter() {
+
+            private volatile Receiver receiver = null;
+
+            @Override
+            public void close() {
+                transmitters.remove(this);
+            }
+
+            @Override
+            public Receiver getReceiver() {
+                return receiver;
+            }
+
+            @Override
+            public void setReceiver( Receiver receiver ) {
+                this.receiver = receiver;
+            }
+
+        };
+
+        transmitters.add(transmitter);
+
+        return transmitter;
+
+    }
+
+    @Override
+    public List<Transmitter> getTransmitters() {
+        return Collections.unmodifiableList(transmitters);
+    }
+
+    /**
+     * Deliver the given message to the receivers of this device's
+     * transmitters, on the calling thread.
+     *
+     * @param message   The message to be delivered.
+     * @param timeStamp The message time-stamp, in microseconds, or -1.
+     */
+    public void inject( MidiMessage message, long timeStamp ) {
+        if ( open ) {
+            for ( Transmitter t : transmitters ) {
+
+                Receiver r = t.getReceiver();
+
+                if ( r != null ) {
+                    r.send(message, timeStamp);
+                }
+
+            }
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void open() {
+        open = true;
+    }
+
+    /**
+     * Called when a message is sent to one of this device's receivers.
+     * <P>
+     * <B>Note:</B> the message can be reused by the sender once this method
+     * returns, so no reference to it must be kept.
+     * <P>
+     * This default implementation does nothing.
+     *
+     * @param message   The received message.
+     * @param timeStamp The message time-stamp.
+     */
+    protected void received( MidiMessage message, long timeStamp ) {
+    }
+
+}
@@ -0,0 +1,592 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2017 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.javafx.control.knobs.controller.midi;
+
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.sound.midi.MidiMessage;
+import javax.sound.midi.ShortMessage;
+
+
+/**
+ * A lock-free, multi-producer/single-consumer queue of outbound MIDI messages.
+ * <P>
+ * Control change messages are coalesced by (MIDI channel, controller number):
+ * while a message for a given controller is pending, newer values simply
+ * replace the pending one, so that only the latest value is sent to the
+ * device. All other messages are delivered in FIFO order.
+ * <P>
+ * Messages are polled in {@link MIDIPriority} order. A pending control change
+ * has the highest priority among the ones of the values it replaced, and is
+ * never sent before the messages of the same priority that were queued
+ * before its latest value: a value replacing a pending one is moved behind
+ * them.
+ * <P>
+ * Each priority has a bounded ring of coalescing slots, that can never be
+ * full, and an unbounded queue of the messages that cannot be coalesced.
+ * Entries of both are numbered in the order they are queued, so that the
+ * consumer can merge them in FIFO order.
+ *
+ * @author Claudio Rosati, European Spallation Source ERIC
+ * @version 1.0.0 18 Oct 2026
+ */
+final class MIDIOutputQueue {
+
+    /**
+     * Number of coalescing slots: 16 MIDI channels × 128 controllers.
+     */
+    static final int SLOTS = 16 * 128;
+
+    /**
+     * Number of bits encoding a slot index in a ring entry.
+     */
+    private static final int SLOT_BITS = 11;
+
+    /**
+     * Value returned by {@link #poll()} when the next message is an ordered
+     * one.
+     */
+    private static final int ORDERED = -1;
+
+    /**
+     * Ring capacity: must be a power of 2 greater than {@link #SLOTS}, so that
+     * coalesced messages (at most one entry per slot in each ring) can never
+     * fill it.
+     */
+    private static final int CAPACITY = 2 * SLOTS;
+    private static final int MASK = CAPACITY - 1;
+
+    private static final MIDIPriority[] PRIORITIES = MIDIPriority.values();
+
+    /**
+     * Pending control change values, indexed by slot. {@code 0} means "nothing
+     * pending", otherwise see {@link #encode(int, long, int)}.
+     */
+    private final AtomicLongArray pending = new AtomicLongArray(SLOTS);
+
+    /**
+     * The {@link System#nanoTime()} when the pending value of each slot was
+     * queued.
+     */
+    private final AtomicLongArray enqueueTimes = new AtomicLongArray(SLOTS);
+
+    /**
+     * For each slot, a bit mask of the rings (by priority) containing an
+     * entry for it.
+     */
+    private final AtomicIntegerArray queuedIn = new AtomicIntegerArray(SLOTS);
+
+    /**
+     * The order of the next entry, in the ring or in the ordered queue of any
+     * priority.
+     */
+    private final AtomicLong nextOrder = new AtomicLong();
+
+    /**
+     * For each slot, the {@link #nextOrder} when its pending value was
+     * offered (the greatest one, if offered concurrently).
+     */
+    private final AtomicLongArray valueOrders = new AtomicLongArray(SLOTS);
+
+    /**
+     * One ring for each priority.
+     */
+    private final Ring[] rings = new Ring[PRIORITIES.length];
+
+    /**
+     * The ring whose ordered message must be returned by
+     * {@link #pollOrdered()}. Accessed by the consumer only.
+     */
+    private Ring lastRing = null;
+
+    /**
+     * Tells if the given message can be coalesced.
+     *
+     * @param message The message to be tested.
+     * @return {@code true} if the message is a control change one.
+     */
+    static boolean isCoalescable( MidiMessage message ) {
+        return ( message instanceof ShortMessage )
+            && ( (ShortMessage) message ).getCommand() == ShortMessage.CONTROL_CHANGE;
+    }
+
+    /**
+     * @param midiChannel The MIDI channel [0-15].
+     * @param data1       The controller number [0-127].
+     * @return The coalescing slot for the given channel and controller.
+     */
+    static int slot( int midiChannel, int data1 ) {
+        return ( ( midiChannel & 0x0F ) << 7 ) | ( data1 & 0x7F );
+    }
+
+    /**
+     * @param slot The coalescing slot.
+     * @return The MIDI channel of the given {@code slot}.
+     */
+    static int channelOf( int slot ) {
+        return slot >>> 7;
+    }
+
+    /**
+     * @param slot The coalescing slot.
+     * @return The controller number (data1) of the given {@code slot}.
+     */
+    static int data1Of( int slot ) {
+        return slot & 0x7F;
+    }
+
+    /**
+     * @param value The non-zero value returned by {@link #take(int)}.
+     * @return The control change value (data2).
+     */
+    static int data2Of( long value ) {
+        return (int) ( value & 0x7F );
+    }
+
+    /**
+     * @param value The non-zero value returned by {@link #take(int)}.
+     * @return The message time-stamp.
+     */
+    static long timeStampOf( long value ) {
+        return value >> 10;
+    }
+
+    /**
+     * Encode the given data, time-stamp and priority ordinal into a non-zero
+     * long.
+     */
+    private static long encode( int data2, long timeStamp, int priority ) {
+        return ( timeStamp << 10 ) | ( priority << 8 ) | 0x80 | ( data2 & 0x7F );
+    }
+
+    private static int priorityOf( long value ) {
+        return (int) ( value >> 8 ) & 0x03;
+    }
+
+    MIDIOutputQueue() {
+        for ( int i = 0; i < rings.length; i++ ) {
+            rings[i] = new Ring(nextOrder);
+        }
+    }
+
+    /**
+     * Enqueue a control change value, replacing the one already pending for
+     * the same channel and controller, if any. Can be called by any thread.
+     * <P>
+     * The value is sent after the ordered messages already queued with the
+     * same priority, even when it replaces a value queued before them.
+     *
+     * @param midiChannel The MIDI channel [0-15].
+     * @param data1       The controller number [0-127].
+     * @param data2       The controller value [0-127].
+     * @param timeStamp   The message time-stamp, or -1.
+     * @param priority    The message priority.
+     * @return {@code true} if a new value was queued, {@code false} if a
+     *         pending value was replaced.
+     */
+    boolean offer( int midiChannel, int data1, int data2, long timeStamp, MIDIPriority priority ) {
+
+        int slot = slot(midiChannel, data1);
+        long old;
+        int merged;
+
+        //  Recorded before the value is published, so that the consumer
+        //  taking it always sees an order not older than the value's one.
+        valueOrders.getAndAccumulate(slot, nextOrder.get(), Math::max);
+
+        do {
+            old = pending.get(slot);
+            merged = ( old == 0L ) ? priority.ordinal() : Math.min(priority.ordinal(), priorityOf(old));
+        } while ( !pending.compareAndSet(slot, old, encode(data2, timeStamp, merged)) );
+
+        if ( old == 0L ) {
+            enqueueTimes.set(slot, System.nanoTime());
+        }
+
+        int bit = 1 << merged;
+
+        if ( ( queuedIn.getAndAccumulate(slot, bit, ( a, b ) -> a | b) & bit ) == 0
+          && !rings[merged].push(slot) ) {
+            //  Cannot happen, because at most one entry per slot exists in
+            //  each ring. Anyway, clear the bit so that the next value
+            //  offered for the slot will try again.
+            queuedIn.getAndAccumulate(slot, ~bit, ( a, b ) -> a & b);
+        }
+
+        return old == 0L;
+
+    }
+
+    /**
+     * Enqueue a message that must not be coalesced. Can be called by any
+     * thread, and never blocks. Messages are delivered in FIFO order with
+     * respect to the other messages having the same priority.
+     *
+     * @param message   The MIDI message.
+     * @param timeStamp The message time-stamp, or -1.
+     * @param priority  The message priority.
+     */
+    void offerOrdered( MidiMessage message, long timeStamp, MIDIPriority priority ) {
+
+        Ring ring = rings[priority.ordinal()];
+
+        ring.ordered.offer(new OrderedMessage(message, timeStamp, System.nanoTime(), nextOrder.getAndIncrement()));
+
+    }
+
+    /**
+     * Enqueue an action to be run by the consumer, in place of sending a
+     * message, once all the messages queued before it with the same priority
+     * are sent. Can be called by any thread, and never blocks.
+     *
+     * @param action   The action to be run.
+     * @param priority The action priority.
+     */
+    void offerAction( Runnable action, MIDIPriority priority ) {
+
+        Ring ring = rings[priority.ordinal()];
+
+        ring.ordered.offer(new OrderedMessage(action, System.nanoTime(), nextOrder.getAndIncrement()));
+
+    }
+
+    /**
+     * Dequeue the next entry, in priority order. Must be called by the
+     * consumer thread only.
+     *
+     * @return A slot index, {@link Integer#MIN_VALUE} if the queue is empty,
+     *         or a negative value if the next message is an ordered one, to be
+     *         read with {@link #pollOrdered()}.
+     */
+    int poll() {
+
+        for ( int i = 0; i < rings.length; i++ ) {
+
+            Ring ring = rings[i];
+
+            //  The ring must be read before the ordered queue: an ordered
+            //  message queued before a ring entry by the same thread is then
+            //  always seen.
+            long entry = ring.peek();
+            long deferred = ring.peekDeferred();
+            OrderedMessage omsg = ring.ordered.peek();
+
+            if ( deferred != Long.MIN_VALUE && ( entry == Long.MIN_VALUE || deferred < entry ) ) {
+                entry = deferred;
+            } else {
+                deferred = Long.MIN_VALUE;
+            }
+
+            if ( omsg != null && ( entry == Long.MIN_VALUE || omsg.order < orderOf(entry) ) ) {
+
+                lastRing = ring;
+
+                return ORDERED;
+
+            } else if ( entry != Long.MIN_VALUE ) {
+
+                int slot = slotOf(entry);
+
+                if ( deferred != Long.MIN_VALUE ) {
+                    ring.removeDeferred();
+                } else {
+                    ring.remove();
+                }
+
+                queuedIn.getAndAccumulate(slot, ~( 1 << i ), ( a, b ) -> a & b);
+
+                return slot;
+
+            }
+
+        }
+
+        return Integer.MIN_VALUE;
+
+    }
+
+    /**
+     * Must be called by the consumer thread only, after {@link #poll()}
+     * returned a negative value other than {@link Integer#MIN_VALUE}.
+     *
+     * @return The next ordered message.
+     */
+    OrderedMessage pollOrdered() {
+        return lastRing.ordered.poll();
+    }
+
+    /**
+     * @param slot The coalescing slot.
+     * @return The {@link System#nanoTime()} when the value pending for the
+     *         given slot was queued. Must be called before {@link #take(int)}.
+     */
+    long enqueueTime( int slot ) {
+        return enqueueTimes.get(slot);
+    }
+
+    /**
+     * Atomically remove and return the pending value of the given slot. Must
+     * be called by the consumer thread only, after {@link #poll()} returned
+     * the given slot.
+     * <P>
+     * If the value was offered after the ordered message at the head of its
+     * priority queue, it is put back, to be polled again in the position it
+     * was offered, and {@code 0} is returned.
+     *
+     * @param slot The coalescing slot.
+     * @return The pending value, or {@code 0} if nothing is pending (i.e. the
+     *         value was already sent by means of another ring entry) or the
+     *         value cannot be sent yet.
+     */
+    long take( int slot ) {
+
+        long value = pending.getAndSet(slot, 0L);
+
+        if ( value != 0L ) {
+
+            int priority = priorityOf(value);
+            OrderedMessage omsg = rings[priority].ordered.peek();
+            long order = valueOrders.get(slot);
+
+            if ( omsg != null && omsg.order < order ) {
+
+                //  If a newer value was offered meanwhile, it was queued on
+                //  its own, and this one is simply discarded. Otherwise, its
+                //  entry is deferred unless a producer pushed a new one after
+                //  the value was put back.
+                if ( pending.compareAndSet(slot, 0L, value) ) {
+
+                    int bit = 1 << priority;
+
+                    if ( ( queuedIn.getAndAccumulate(slot, bit, ( a, b ) -> a | b) & bit ) == 0 ) {
+                        rings[priority].defer(( order << SLOT_BITS ) | slot);
+                    }
+
+                }
+
+                return 0L;
+
+            }
+
+        }
+
+        return value;
+
+    }
+
+    /**
+     * Must be called by the consumer thread only.
+     *
+     * @return {@code true} if no messages are waiting to be polled.
+     */
+    boolean isEmpty() {
+
+        for ( Ring ring : rings ) {
+            if ( !ring.isEmpty() || ring.deferredSize > 0 || !ring.ordered.isEmpty() ) {
+                return false;
+            }
+        }
+
+        return true;
+
+    }
+
+    private static long orderOf( long entry ) {
+        return entry >>> SLOT_BITS;
+    }
+
+    private static int slotOf( long entry ) {
+        return (int) ( entry & ( SLOTS - 1 ) );
+    }
+
+    /**
+     * A MIDI message that cannot be coalesced, with its time-stamp, or an
+     * action to be run by the consumer.
+     */
+    static final class OrderedMessage {
+
+        final Runnable action;
+        final long enqueueTime;
+        final MidiMessage message;
+        final long order;
+        final long timeStamp;
+
+        OrderedMessage( MidiMessage message, long timeStamp, long enqueueTime, long order ) {
+            this.action = null;
+            this.message = message;
+            this.timeStamp = timeStamp;
+            this.enqueueTime = enqueueTime;
+            this.order = order;
+        }
+
+        OrderedMessage( Runnable action, long enqueueTime, long order ) {
+            this.action = action;
+            this.message = null;
+            this.timeStamp = -1L;
+            this.enqueueTime = enqueueTime;
+            this.order = order;
+        }
+
+    }
+
+    /**
+     * Bounded MPSC ring (D. Vyukov's algorithm) of slot indices, each one
+     * numbered with the order it was pushed, with the queue of the ordered
+     * messages of the same priority.
+     * <P>
+     * Entries whose value cannot be sent yet are kept by the consumer in a
+     * binary heap, ordered by the order of their value, with at most one
+     * entry per slot.
+     */
+    private static final class Ring {
+
+        final ConcurrentLinkedQueue<OrderedMessage> ordered = new ConcurrentLinkedQueue<>();
+        private final long[] deferred = new long[SLOTS];  //  Accessed by the consumer only.
+        private int deferredSize = 0;                      //  Accessed by the consumer only.
+        private final long[] entries = new long[CAPACITY];
+        private final AtomicLongArray sequence = new AtomicLongArray(CAPACITY);
+        private final AtomicLong tail = new AtomicLong();
+        private long head = 0;  //  Accessed by the consumer only.
+        private final AtomicLong nextOrder;
+
+        /**
+         * @param nextOrder The order of the next entry, shared by all rings
+         *                  and ordered queues.
+         */
+        Ring( AtomicLong nextOrder ) {
+
+            this.nextOrder = nextOrder;
+
+            for ( int i = 0; i < CAPACITY; i++ ) {
+                sequence.set(i, i);
+            }
+
+        }
+
+        boolean isEmpty() {
+            return sequence.get((int) ( head & MASK )) != head + 1;
+        }
+
+        /**
+         * @return The entry at the head of the ring, encoding its order and
+         *         slot, or {@link Long#MIN_VALUE} if the ring is empty.
+         */
+        long peek() {
+
+            int index = (int) ( head & MASK );
+
+            if ( sequence.get(index) != head + 1 ) {
+                return Long.MIN_VALUE;
+            }
+
+            return entries[index];
+
+        }
+
+        /**
+         * Add the given entry to the deferred ones.
+         *
+         * @param entry The entry, encoding the order of its value and its slot.
+         */
+        void defer( long entry ) {
+
+            int i = deferredSize++;
+
+            while ( i > 0 && deferred[( i - 1 ) >>> 1] > entry ) {
+                deferred[i] = deferred[( i - 1 ) >>> 1];
+                i = ( i - 1 ) >>> 1;
+            }
+
+            deferred[i] = entry;
+
+        }
+
+        /**
+         * @return The deferred entry with the lowest order, or
+         *         {@link Long#MIN_VALUE} if there are none.
+         */
+        long peekDeferred() {
+            return deferredSize > 0 ? deferred[0] : Long.MIN_VALUE;
+        }
+
+        /**
+         * Remove the deferred entry with the lowest order, that must exist.
+         */
+        void removeDeferred() {
+
+            long last = deferred[--deferredSize];
+            int i = 0;
+
+            while ( true ) {
+
+                int child = 2 * i + 1;
+
+                if ( child >= deferredSize ) {
+                    break;
+                } else if ( child + 1 < deferredSize && deferred[child + 1] < deferred[child] ) {
+                    child++;
+                }
+
+                if ( deferred[child] >= last ) {
+                    break;
+                }
+
+                deferred[i] = deferred[child];
+                i = child;
+
+            }
+
+            deferred[i] = last;
+
+        }
+
+        /**
+         * Remove the entry at the head of the ring, that must not be empty.
+         */
+        void remove() {
+            sequence.set((int) ( head & MASK ), head + CAPACITY);
+            head++;
+        }
+
+        boolean push( int slot ) {
+
+            while ( true ) {
+
+                long t = tail.get();
+                int index = (int) ( t & MASK );
+                long seq = sequence.get(index);
+
+                if ( seq == t ) {
+                    if ( tail.compareAndSet(t, t + 1) ) {
+                        entries[index] = ( nextOrder.getAndIncrement() << SLOT_BITS ) | slot;
+                        sequence.set(index, t + 1);
+                        return true;
+                    }
+                } else if ( seq < t ) {
+                    return false;
+                }
+
+            }
+
+        }
+
+    }
+
+}
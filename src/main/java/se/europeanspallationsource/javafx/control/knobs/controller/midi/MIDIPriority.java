@@ -0,0 +1,46 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2017 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.javafx.control.knobs.controller.midi;
+
+
+/**
+ * The priority classes of the messages sent to a MIDI device. When the
+ * output is paced (see {@link AbstractMIDIController#setRateLimit(int)}),
+ * queued messages are sent in priority order.
+ *
+ * @author Claudio Rosati, European Spallation Source ERIC
+ * @version 1.0.0 18 Oct 2026
+ */
+public enum MIDIPriority {
+
+    /**
+     * Direct feedback to the operator actions (e.g. switching page).
+     */
+    FEEDBACK,
+
+    /**
+     * Process values and state of the attached controllables (e.g. the
+     * encoder rings following the current value).
+     */
+    PROCESS_VALUE,
+
+    /**
+     * Bulk transfers, like reset and resynchronization of the device.
+     */
+    BULK
+
+}
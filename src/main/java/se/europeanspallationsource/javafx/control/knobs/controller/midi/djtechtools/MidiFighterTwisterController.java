@@ -18,17 +18,48 @@ package se.europeanspallationsource.javafx.control.knobs.controller.midi.djtecht
 
 
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.DoubleConsumer;
 import java.util.logging.Logger;
 import javafx.scene.paint.Color;
+import javax.sound.midi.MidiDevice;
 import javax.sound.midi.MidiMessage;
 import javax.sound.midi.ShortMessage;
 import se.europeanspallationsource.javafx.control.knobs.controller.Controllable;
+import se.europeanspallationsource.javafx.control.knobs.controller.ControllableState;
 import se.europeanspallationsource.javafx.control.knobs.controller.midi.AbstractMIDIController;
+import se.europeanspallationsource.javafx.control.knobs.controller.midi.MIDIPriority;
 import se.europeanspallationsource.javafx.control.knobs.controller.spi.Controller;
 
 
 /**
  * {@link Controller} implementation for the DJTECHTOOLS Midi Fighter Twister.
+ * <P>
+ * When several Midi Fighter Twisters are connected, each one is exposed as a
+ * separate controller: the first one has {@link #IDENTIFIER} as identifier,
+ * the following ones {@code "Midi Fighter Twister #2"}, {@code "#3"}, and so
+ * on (see {@link #identifier(int)}). Controllers bound to injected devices
+ * (see {@link #MidiFighterTwisterController(MidiDevice)}) have distinct
+ * identifiers too, {@code "Midi Fighter Twister (injected #1)"} and so on.
+ * <P>
+ * In paging mode (see {@link #setPaging(boolean)}) the channel of a
+ * controllable is a virtual one: channels are grouped into pages of 16
+ * encoders, and only the live page (see {@link #setPage(int)}) is shown on
+ * the device, in the bank whose index is the page one modulo 4. The device's
+ * bank buttons switch among the 4 pages of the live page group. When the
+ * live page changes only the encoders whose ring or color differs from the
+ * ones shown are updated.
  *
  * @author Claudio Rosati, European Spallation Source ERIC
  * @version 1.0.0 28 Aug 2017
@@ -37,30 +68,369 @@ public class MidiFighterTwisterController extends AbstractMIDIController {
 
     public static final String IDENTIFIER = "Midi Fighter Twister";
 
+    /**
+     * The system property that, when set to {@code true}, makes the default
+     * value of {@link #isFullSweepReset()} {@code true}.
+     */
+    public static final String FULL_SWEEP_RESET_PROPERTY = "mft.reset.fullSweep";
+
+    /**
+     * The system property that, when set to {@code true}, makes the default
+     * value of {@link #isPaging()} {@code true}.
+     */
+    public static final String PAGING_PROPERTY = "mft.paging";
+
+    /**
+     * The number of encoders in a page.
+     */
+    public static final int PAGE_SIZE = 16;
+
+    private static final int BANKS = 4;
     private static final int CHANNELS = 64;
+    private static final long ALL_CHANNELS = -1L;  //  One bit for each of the 64 channels.
+    private static final int MAX_VIRTUAL_CHANNELS = 256 * PAGE_SIZE;
+    private static final int SYSTEM_MIDI_CHANNEL = 3;  //  Bank changes.
 
     private static final Logger LOGGER = Logger.getLogger(MidiFighterTwisterController.class.getName());
+    private static final MFTControllableWrapper[] NO_WRAPPERS = new MFTControllableWrapper[0];
+    private static final int ROUTES = 128;  //  One for each possible data1 value.
+
+    /**
+     * Bit mask of the channels whose state on the device is unknown or was
+     * changed since last reset. At start-up the device state is unknown.
+     */
+    private final AtomicLong dirtyChannels = new AtomicLong(ALL_CHANNELS);
+    private volatile boolean fullSweepReset = Boolean.getBoolean(FULL_SWEEP_RESET_PROPERTY);
+
+    /*
+     * ---- device state -------------------------------------------------------
+     * Page changes and sends to the device channels are serialized by
+     * stateLock, so that a page is never shown mixed with the previous one,
+     * and the shadow of the device state follows the order of the messages.
+     */
+    private volatile int livePage = 0;
+    private final Object stateLock = new Object();
+    private volatile boolean paging = Boolean.getBoolean(PAGING_PROPERTY);
+
+    /**
+     * Shadow of the device state: the ring (index {@code c}) and color (index
+     * {@code CHANNELS + c}) values last sent to each device channel {@code c},
+     * or -1 if unknown. Sends not changing it are skipped.
+     */
+    private final int[] shownValues = new int[2 * CHANNELS];  //  Guarded by stateLock.
+
+    /**
+     * Wrappers indexed by (virtual) encoder channel, used to dispatch received
+     * messages. Arrays are never modified: a new one is set for each change,
+     * so that the receiving thread can read them without locking. The table
+     * itself is replaced by a larger one when needed.
+     */
+    private volatile AtomicReferenceArray<MFTControllableWrapper[]> routes = newRoutes(ROUTES, null);
+
+    /**
+     * The single thread handling the SET_AND_CLICK time-outs of all wrappers.
+     */
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+
+        Thread thread = new Thread(r, "time-out timer - " + getIdentifier());
+
+        thread.setDaemon(true);
+
+        return thread;
+
+    });
+
+    /**
+     * @param deviceIndex The index of a device among the connected Midi
+     *                    Fighter Twisters.
+     * @return The identifier of the controller of the given device.
+     */
+    public static String identifier( int deviceIndex ) {
+        return deviceIndex == 0 ? IDENTIFIER : IDENTIFIER + " #" + ( deviceIndex + 1 );
+    }
+
+    /**
+     * The number of controllers created for injected devices, used to give
+     * each one a distinct identifier.
+     */
+    private static final AtomicInteger INJECTED_DEVICES = new AtomicInteger(0);
+
+    /**
+     * The index of the device among the connected ones, or -1 for an injected
+     * device.
+     */
+    private final int deviceIndex;
 
     public MidiFighterTwisterController() {
-        super(IDENTIFIER);
+        this(0);
+    }
+
+    /**
+     * Create a controller bound to the {@code deviceIndex}-th connected
+     * Midi Fighter Twister.
+     *
+     * @param deviceIndex The index of the device among the connected ones.
+     */
+    protected MidiFighterTwisterController( int deviceIndex ) {
+        super(identifier(deviceIndex), IDENTIFIER, deviceIndex);
+        this.deviceIndex = deviceIndex;
+        forgetShownValues();
+    }
+
+    /**
+     * Create a controller bound to the given device, instead of the one found
+     * in the MIDI system (e.g. a {@link VirtualMidiFighterTwister}). Its
+     * identifier is distinct from the ones of the controllers of connected
+     * devices, so that their metrics MBeans don't collide.
+     *
+     * @param device The device used both to receive and send MIDI messages.
+     */
+    public MidiFighterTwisterController( MidiDevice device ) {
+        super(IDENTIFIER + " (injected #" + INJECTED_DEVICES.incrementAndGet() + ")", device, device);
+        this.deviceIndex = -1;
+        forgetShownValues();
+    }
+
+    /**
+     * @return The controllers of the other connected Midi Fighter Twisters,
+     *         if this is the controller of the first one.
+     */
+    @Override
+    public List<Controller> createSiblings() {
+
+        List<Controller> siblings = new ArrayList<>(2);
+
+        if ( deviceIndex == 0 ) {
+
+            int count = countDevices(IDENTIFIER);
+
+            for ( int i = 1; i < count; i++ ) {
+                siblings.add(new MidiFighterTwisterController(i));
+            }
+
+        }
+
+        return siblings;
+
+    }
+
+    @Override
+    public void dispose() {
+        super.dispose();
+        timer.shutdownNow();
+    }
+
+    /**
+     * @return The live page, i.e. the one shown on the device in paging mode.
+     */
+    public int getPage() {
+        return livePage;
+    }
+
+    /**
+     * Show the given page on the device, in paging mode, updating only the
+     * encoders whose state differs from the shown one.
+     *
+     * @param page The page to be shown, in the [0, 255] range.
+     */
+    public void setPage( int page ) {
+
+        if ( page < 0 || page >= MAX_VIRTUAL_CHANNELS / PAGE_SIZE ) {
+            LOGGER.warning(MessageFormat.format("Page out of range: {0,number,##0}", page));
+            return;
+        }
+
+        if ( paging ) {
+            showPage(page, true);
+        }
+
+    }
+
+    /**
+     * @return The number of pages up to the last one having controllables
+     *         attached.
+     */
+    public int getPageCount() {
+
+        AtomicReferenceArray<MFTControllableWrapper[]> r = routes;
+
+        for ( int c = r.length() - 1; c >= 0; c-- ) {
+            if ( r.get(c).length > 0 ) {
+                return c / PAGE_SIZE + 1;
+            }
+        }
+
+        return 1;
+
+    }
+
+    /**
+     * Show the next page, or the first one after the last page having
+     * controllables attached.
+     */
+    public void nextPage() {
+        setPage(( livePage + 1 ) % getPageCount());
+    }
+
+    /**
+     * Show the previous page, or the last one having controllables attached
+     * when the first page is shown.
+     */
+    public void previousPage() {
+
+        int count = getPageCount();
+
+        setPage(( livePage + count - 1 ) % count);
+
+    }
+
+    /**
+     * @return {@code true} if the channels of the controllables are virtual
+     *         ones, grouped into pages.
+     */
+    public boolean isPaging() {
+        return paging;
+    }
+
+    /**
+     * Switch the paging mode, showing the first page.
+     *
+     * @param paging {@code true} if the channels of the controllables must be
+     *               considered virtual ones, grouped into pages.
+     */
+    public void setPaging( boolean paging ) {
+        synchronized ( stateLock ) {
+            if ( this.paging != paging ) {
+
+                this.paging = paging;
+                livePage = 0;
+
+                deviceReconnected();
+
+                if ( !paging ) {
+                    //  Banks 1-3 still show the pages pushed while paging.
+                    clearUnusedChannels(MIDIPriority.BULK);
+                }
+
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} if {@link #reset()} sweeps all values of all
+     *         channels, instead of clearing only the channels that need it.
+     */
+    public boolean isFullSweepReset() {
+        return fullSweepReset;
+    }
+
+    public void setFullSweepReset( boolean fullSweepReset ) {
+        this.fullSweepReset = fullSweepReset;
     }
 
     @Override
     public boolean reset() {
+        return reset(new CompletableFuture<>(), null);
+    }
+
+    /**
+     * Clear the channels changed since last reset (or all of them when
+     * {@link #isFullSweepReset()} is {@code true}), then re-send the state of
+     * the attached controllables.
+     *
+     * @param handle           The future returned to the caller.
+     * @param progressListener The optional reset progress listener.
+     * @return {@code true} on success.
+     */
+    @Override
+    protected boolean reset( Future<Boolean> handle, DoubleConsumer progressListener ) {
 
         if ( !super.reset() ) {
             return false;
         }
 
+        boolean fullSweep = fullSweepReset;
+        long channels = fullSweep ? ALL_CHANNELS : dirtyChannels.getAndSet(0L);
+        long cleared = 0L;
+        int count = Long.bitCount(channels);
+        int done = 0;
+
+        if ( fullSweep ) {
+            //  Values sent while sweeping are always sent, and recorded.
+            forgetShownValues();
+        }
+
         for ( int c = 0; c < CHANNELS; c++ ) {
-            for ( int v = 127; v >= 0; v-- ) {
-                if ( !send(ShortMessage.CONTROL_CHANGE, 0, c, v, -1) ) {
-                    return false;
+
+            long bit = 1L << c;
+
+            if ( ( channels & bit ) == 0 ) {
+                continue;
+            }
+
+            if ( handle.isCancelled() ) {
+                //  Channels not cleared still need it.
+                dirtyChannels.accumulateAndGet(channels & ~cleared, ( a, b ) -> a | b);
+                return false;
+            }
+
+            if ( fullSweep ) {
+                for ( int v = 127; v >= 0; v-- ) {
+                    if ( !sendInOrder(MIDIPriority.BULK, ShortMessage.CONTROL_CHANGE, 0, c, v, -1) ) {
+                        return false;
+                    }
+                    if ( !sendInOrder(MIDIPriority.BULK, ShortMessage.CONTROL_CHANGE, 1, c, v, -1) ) {
+                        return false;
+                    }
                 }
-                if ( !send(ShortMessage.CONTROL_CHANGE, 1, c, v, -1) ) {
-                    return false;
+            } else if ( !clearChannel(c) ) {
+                dirtyChannels.accumulateAndGet(channels & ~cleared, ( a, b ) -> a | b);
+                return false;
+            }
+
+            cleared |= bit;
+
+            if ( progressListener != null ) {
+                progressListener.accept(++done / (double) count);
+            }
+
+        }
+
+        if ( fullSweep ) {
+
+            //  Values sent with higher priority while sweeping could have been
+            //  overwritten by the sweep: the shown values are known only once
+            //  it is done.
+            if ( !awaitSent(MIDIPriority.BULK, handle) ) {
+                return false;
+            }
+
+            synchronized ( stateLock ) {
+                for ( int i = 0; i < shownValues.length; i++ ) {
+                    //  Channels sent meanwhile must be sent again.
+                    shownValues[i] = ( shownValues[i] < 0 ) ? 0 : -1;
                 }
             }
+
+        }
+
+        if ( paging ) {
+            selectBank(MIDIPriority.BULK, livePage);
+        }
+
+        //  Attached controllables must show their state again.
+        for ( AbstractControllableWrapper w : getWrappers() ) {
+
+            int channel = physicalChannel(w.getChannel());
+
+            if ( channel >= 0 && channel < CHANNELS && ( cleared & ( 1L << channel ) ) != 0 ) {
+                ( (MFTControllableWrapper) w ).initChannel();
+            }
+
+        }
+
+        if ( progressListener != null ) {
+            progressListener.accept(1.0);
         }
 
         return true;
@@ -72,6 +442,302 @@ public class MidiFighterTwisterController extends AbstractMIDIController {
         return new MFTControllableWrapper(controllable, this);
     }
 
+    /**
+     * @param size    The size of the new routing table.
+     * @param current The table whose routes must be copied, or {@code null}.
+     * @return A new routing table.
+     */
+    private static AtomicReferenceArray<MFTControllableWrapper[]> newRoutes( int size, AtomicReferenceArray<MFTControllableWrapper[]> current ) {
+
+        AtomicReferenceArray<MFTControllableWrapper[]> table = new AtomicReferenceArray<>(size);
+
+        for ( int i = 0; i < size; i++ ) {
+            table.set(i, ( current != null && i < current.length() ) ? current.get(i) : NO_WRAPPERS);
+        }
+
+        return table;
+
+    }
+
+    /**
+     * Send 0 to the ring and color of the given device channel, even if the
+     * shadow state says they already are 0, without marking the channel as
+     * changed since last reset.
+     *
+     * @param channel The device channel.
+     * @return {@code true} on success.
+     */
+    private boolean clearChannel( int channel ) {
+        synchronized ( stateLock ) {
+
+            boolean success = send(MIDIPriority.BULK, ShortMessage.CONTROL_CHANGE, 0, channel, 0, -1)
+                           && send(MIDIPriority.BULK, ShortMessage.CONTROL_CHANGE, 1, channel, 0, -1);
+
+            shownValues[channel] = success ? 0 : -1;
+            shownValues[CHANNELS + channel] = success ? 0 : -1;
+
+            return success;
+
+        }
+    }
+
+    /**
+     * Forget the values shown by the device, whose state is unknown.
+     */
+    private void forgetShownValues() {
+        synchronized ( stateLock ) {
+            Arrays.fill(shownValues, -1);
+        }
+    }
+
+    /**
+     * @param channel The channel of a controllable.
+     * @return The device channel corresponding to the given one, or -1 if the
+     *         given channel is not on the live page in paging mode.
+     */
+    private int physicalChannel( int channel ) {
+
+        if ( !paging ) {
+            return channel;
+        }
+
+        int page = channel / PAGE_SIZE;
+
+        if ( channel < 0 || page != livePage ) {
+            return -1;
+        }
+
+        return ( page % BANKS ) * PAGE_SIZE + channel % PAGE_SIZE;
+
+    }
+
+    /**
+     * Send the state of the controllables of the given page to the encoders
+     * of its bank, skipping the encoders already showing it. Must be called
+     * holding {@link #stateLock}.
+     *
+     * @param priority The priority of the messages sent.
+     * @param page     The page to be pushed.
+     */
+    private void pushPage( MIDIPriority priority, int page ) {
+
+        AtomicReferenceArray<MFTControllableWrapper[]> r = routes;
+        int bank = page % BANKS;
+
+        for ( int e = 0; e < PAGE_SIZE; e++ ) {
+
+            int channel = page * PAGE_SIZE + e;
+            int physical = bank * PAGE_SIZE + e;
+            MFTControllableWrapper[] wrappers = channel < r.length() ? r.get(channel) : NO_WRAPPERS;
+            int ring = 0;
+            int color = 0;
+
+            if ( wrappers.length > 0 ) {
+
+                ControllableState s = wrappers[wrappers.length - 1].getState();
+
+                ring = s.midiValue(s.getCurrentValue());
+                color = midiColor(s.getTagColor());
+
+            }
+
+            sendToDevice(priority, 0, physical, ring);
+            sendToDevice(priority, 1, physical, color);
+
+        }
+
+    }
+
+    /**
+     * Clear the ring and color of the device channels having no attached
+     * controllables. Must be called holding {@link #stateLock}, when not in
+     * paging mode.
+     *
+     * @param priority The priority of the messages sent.
+     */
+    private void clearUnusedChannels( MIDIPriority priority ) {
+
+        AtomicReferenceArray<MFTControllableWrapper[]> r = routes;
+
+        for ( int channel = 0; channel < CHANNELS; channel++ ) {
+            if ( channel >= r.length() || r.get(channel).length == 0 ) {
+                sendToDevice(priority, 0, channel, 0);
+                sendToDevice(priority, 1, channel, 0);
+            }
+        }
+
+    }
+
+    /**
+     * Tell the device to show the bank of the given page.
+     *
+     * @param priority The priority of the message sent.
+     * @param page     The page to be shown.
+     */
+    private void selectBank( MIDIPriority priority, int page ) {
+        send(priority, ShortMessage.CONTROL_CHANGE, SYSTEM_MIDI_CHANNEL, page % BANKS, 0x7F, -1);
+    }
+
+    /**
+     * Make the given page the live one and push its state to the device.
+     *
+     * @param page       The page to be shown.
+     * @param selectBank {@code true} if the device must be told to show the
+     *                   page's bank, {@code false} if the device already did
+     *                   it (i.e. the bank buttons were used).
+     */
+    private void showPage( int page, boolean selectBank ) {
+        synchronized ( stateLock ) {
+            if ( page != livePage ) {
+
+                livePage = page;
+
+                if ( selectBank ) {
+                    selectBank(MIDIPriority.FEEDBACK, page);
+                }
+
+                pushPage(MIDIPriority.FEEDBACK, page);
+
+            }
+        }
+    }
+
+    /**
+     * Route the messages of the wrapper's current channel to the given wrapper,
+     * removing the route of its previous channel, if any.
+     *
+     * @param wrapper The wrapper to be routed.
+     */
+    private synchronized void route( MFTControllableWrapper wrapper ) {
+
+        unroute(wrapper);
+
+        int channel = wrapper.getChannel();
+
+        if ( channel >= 0 && channel < MAX_VIRTUAL_CHANNELS ) {
+
+            if ( channel >= routes.length() ) {
+                routes = newRoutes(Math.min(MAX_VIRTUAL_CHANNELS, Math.max(channel + 1, 2 * routes.length())), routes);
+            }
+
+            MFTControllableWrapper[] current = routes.get(channel);
+            MFTControllableWrapper[] updated = Arrays.copyOf(current, current.length + 1);
+
+            updated[current.length] = wrapper;
+
+            routes.set(channel, updated);
+            wrapper.routedChannel = channel;
+
+        }
+
+    }
+
+    /**
+     * Remove the given wrapper from the routing table.
+     *
+     * @param wrapper The wrapper to be removed.
+     */
+    private synchronized void unroute( MFTControllableWrapper wrapper ) {
+
+        int channel = wrapper.routedChannel;
+
+        if ( channel >= 0 ) {
+
+            MFTControllableWrapper[] current = routes.get(channel);
+            MFTControllableWrapper[] updated = Arrays.stream(current)
+                .filter(w -> w != wrapper)
+                .toArray(MFTControllableWrapper[]::new);
+
+            routes.set(channel, updated.length == 0 ? NO_WRAPPERS : updated);
+            wrapper.routedChannel = -1;
+
+        }
+
+    }
+
+    /**
+     * Send a control change message to the given encoder channel. In paging
+     * mode nothing is sent if the channel is not on the live page: its state
+     * is sent when the page is shown.
+     *
+     * @param priority    The message priority.
+     * @param midiChannel 0 for the encoder ring, 1 for the LED color.
+     * @param channel     The encoder channel.
+     * @param value       The value to be sent.
+     * @return {@code true} on success.
+     */
+    private boolean sendToChannel( MIDIPriority priority, int midiChannel, int channel, int value ) {
+        synchronized ( stateLock ) {
+
+            int physical = physicalChannel(channel);
+
+            return physical < 0 || sendToDevice(priority, midiChannel, physical, value);
+
+        }
+    }
+
+    /**
+     * Send a control change message to the given device channel, marking it
+     * as changed since last reset, unless the shadow state says the device
+     * already shows the given value. Must be called holding
+     * {@link #stateLock}.
+     *
+     * @param priority    The message priority.
+     * @param midiChannel 0 for the encoder ring, 1 for the LED color.
+     * @param channel     The device channel.
+     * @param value       The value to be sent.
+     * @return {@code true} on success.
+     */
+    private boolean sendToDevice( MIDIPriority priority, int midiChannel, int channel, int value ) {
+
+        if ( channel < 0 || channel >= CHANNELS ) {
+            return send(priority, ShortMessage.CONTROL_CHANGE, midiChannel, channel, value, -1);
+        }
+
+        int index = midiChannel * CHANNELS + channel;
+
+        if ( shownValues[index] == value ) {
+            getMetrics().messageSuppressed();
+            return true;
+        }
+
+        dirtyChannels.accumulateAndGet(1L << channel, ( a, b ) -> a | b);
+
+        if ( send(priority, ShortMessage.CONTROL_CHANGE, midiChannel, channel, value, -1) ) {
+            shownValues[index] = value;
+            return true;
+        } else {
+            shownValues[index] = -1;
+            return false;
+        }
+
+    }
+
+    /**
+     * Send again the ring and color state of the attached controllables.
+     */
+    @Override
+    protected void deviceReconnected() {
+
+        dirtyChannels.set(ALL_CHANNELS);
+
+        synchronized ( stateLock ) {
+
+            forgetShownValues();
+
+            if ( paging ) {
+                selectBank(MIDIPriority.BULK, livePage);
+                pushPage(MIDIPriority.BULK, livePage);
+            } else {
+                for ( AbstractControllableWrapper w : getWrappers() ) {
+                    ( (MFTControllableWrapper) w ).initChannel();
+                }
+            }
+
+        }
+
+    }
+
     @Override
     protected void midiMessageReceived( MidiMessage message, long timeStamp ) {
 
@@ -82,12 +748,38 @@ public class MidiFighterTwisterController extends AbstractMIDIController {
 
             if ( midiChannel < 2 ) {
 
-                int wrapperChannel = smsg.getData1();
+                long receptionTime = getMetrics().getLatencyTracer().isEnabled() ? System.nanoTime() : 0L;
+                int channel = smsg.getData1();
+                int value = smsg.getData2();
+                long time = timeStamp >= 0 ? timeStamp : System.nanoTime() / 1000L;
+
+                if ( paging ) {
+
+                    //  The page of the group of the live one shown in the encoder's bank.
+                    int page = livePage;
+
+                    channel = ( page - page % BANKS + channel / PAGE_SIZE ) * PAGE_SIZE + channel % PAGE_SIZE;
+
+                }
+
+                AtomicReferenceArray<MFTControllableWrapper[]> r = routes;
+
+                if ( channel < r.length() ) {
+                    for ( MFTControllableWrapper w : r.get(channel) ) {
+                        w.handleReceivedMessage(midiChannel, value, time, receptionTime);
+                    }
+                }
+
+            } else if ( midiChannel == SYSTEM_MIDI_CHANNEL
+                     && paging
+                     && smsg.getCommand() == ShortMessage.CONTROL_CHANGE
+                     && smsg.getData1() < BANKS
+                     && smsg.getData2() == 0x7F ) {
 
-                getWrappers()
-                    .stream()
-                    .filter(w -> w.getChannel() == wrapperChannel)
-                    .forEach(w -> ((MFTControllableWrapper) w).handleReceivedMessage(midiChannel, smsg.getData2()));
+                //  Bank button pressed: show the corresponding page of the live group.
+                int page = livePage;
+
+                showPage(page - page % BANKS + smsg.getData1(), false);
 
             }
 
@@ -95,6 +787,23 @@ public class MidiFighterTwisterController extends AbstractMIDIController {
 
     }
 
+    /**
+     * @param color The tag color.
+     * @return The MIDI value of the encoder LED color closest to the given one.
+     */
+    private static int midiColor( Color color ) {
+
+        double hue = color.getHue();
+        double mftHue = 360.0 + ( ( 360.0 - hue ) - 120.0 );
+        int mftHueInteger = (int) mftHue;
+        double mftHueResidual = mftHue - mftHueInteger;
+
+        mftHueInteger %= 360;
+
+        return 1 + (int) Math.round( 125 * ( mftHueInteger + mftHueResidual ) / 360.0);
+
+    }
+
     private static class MFTControllableWrapper extends AbstractControllableWrapper {
 
         private static final long CLICK_DETECTION_TIME = 300L;  //  ms
@@ -102,25 +811,34 @@ public class MidiFighterTwisterController extends AbstractMIDIController {
 
         private volatile double pressedTargetValue = 0;
         private volatile long pressedTime = 0L;
-        private volatile boolean stopTimeOutThread = false;
-        private volatile long timeOutLastOperation = 0L;
-        private volatile double timeOutTargetValue = 0;
-        private volatile Thread timeOutThread = null;
+        private long timeOutDeadline = 0L;              //  Guarded by this.
+        private long timeOutGeneration = 0L;            //  Guarded by this.
+        private double timeOutTargetValue = 0;          //  Guarded by this.
+        private ScheduledFuture<?> timeOut = null;      //  Guarded by this.
+        private int routedChannel = -1;  //  Guarded by the controller.
+        private int lastDetentDirection = 0;                //  MIDI input thread only.
+        private long lastDetentTimeStamp = Long.MIN_VALUE;  //  MIDI input thread only.
 
         MFTControllableWrapper ( Controllable controllable, MidiFighterTwisterController controller ) {
             super(controllable, controller);
+            controller.route(this);
             initChannel();
         }
 
         @Override
         protected void channelChanged( int oldValue, int newValue ) {
+            getMFTController().route(this);
             resetChannel(oldValue);
             initChannel();
         }
 
         @Override
         protected void currentValueChanged( double oldValue, double newValue ) {
-            getMFTController().send(ShortMessage.CONTROL_CHANGE, 0, getChannel(), midiValue(newValue), -1);
+
+            ControllableState s = getState();
+
+            getMFTController().sendToChannel(MIDIPriority.PROCESS_VALUE, 0, s.getChannel(), s.midiValue(newValue));
+
         }
 
         @Override
@@ -131,17 +849,19 @@ public class MidiFighterTwisterController extends AbstractMIDIController {
         @Override
         protected void dispose() {
             super.dispose();
+            cancelTimeOut();
+            getMFTController().unroute(this);
             resetChannel();
         }
 
         @Override
         protected void maxValueChanged( double oldValue, double newValue ) {
-            getMFTController().send(ShortMessage.CONTROL_CHANGE, 0, getChannel(), midiValue(getCurrentValue()), -1);
+            showCurrentValue(MIDIPriority.PROCESS_VALUE);
         }
 
         @Override
         protected void minValueChanged( double oldValue, double newValue ) {
-            getMFTController().send(ShortMessage.CONTROL_CHANGE, 0, getChannel(), midiValue(getCurrentValue()), -1);
+            showCurrentValue(MIDIPriority.PROCESS_VALUE);
         }
 
         @Override
@@ -151,43 +871,101 @@ public class MidiFighterTwisterController extends AbstractMIDIController {
 
         @Override
         protected void tagColorChanged( Color oldValue, Color newValue ) {
+            showTagColor(MIDIPriority.PROCESS_VALUE, newValue);
+        }
 
-            double hue = newValue.getHue();
-            double mftHue = 360.0 + ( ( 360.0 - hue ) - 120.0 );
-            int mftHueInteger = (int) mftHue;
-            double mftHueResidual = mftHue - mftHueInteger;
-            
-            mftHueInteger %= 360;
-            
-            int midiValue = 1 + (int) Math.round( 125 * ( mftHueInteger + mftHueResidual ) / 360.0);
+        @Override
+        protected void targetValueChanged( double oldValue, double newValue ) {
+            //  Nothing to be done.
+        }
+
+        /**
+         * Start the SET_AND_CLICK time-out, if not already running, otherwise
+         * postpone it. When the time-out expires the target value is reverted
+         * to the current value at the time the time-out was started.
+         */
+        private synchronized void armTimeOut() {
+
+            timeOutDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIME_OUT_DETECTION_TIME);
+
+            if ( timeOut == null ) {
 
-            getMFTController().send(ShortMessage.CONTROL_CHANGE, 1, getChannel(), midiValue, -1);
+                long generation = ++timeOutGeneration;
 
-            setTagColor(Color.hsb(hue, 1.0, 1.0));
+                timeOutTargetValue = getCurrentValue();
+                timeOut = getMFTController().timer.schedule(() -> timeOutExpired(generation), TIME_OUT_DETECTION_TIME, TimeUnit.MILLISECONDS);
+
+            }
 
         }
 
-        @Override
-        protected void targetValueChanged( double oldValue, double newValue ) {
-            //  Nothing to be done.
+        private synchronized void cancelTimeOut() {
+            if ( timeOut != null ) {
+                timeOut.cancel(false);
+                timeOut = null;
+                timeOutGeneration++;
+            }
+        }
+
+        /**
+         * Postpone the SET_AND_CLICK time-out, if running.
+         */
+        private synchronized void postponeTimeOut() {
+            if ( timeOut != null ) {
+                timeOutDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIME_OUT_DETECTION_TIME);
+            }
+        }
+
+        /**
+         * Called by the timer: the task is re-scheduled until the deadline,
+         * postponed by the operations performed meanwhile, is reached.
+         *
+         * @param generation The time-out generation when the task was scheduled.
+         */
+        private synchronized void timeOutExpired( long generation ) {
+
+            if ( generation != timeOutGeneration || timeOut == null ) {
+                //  Cancelled in the meantime.
+                return;
+            }
+
+            long remaining = timeOutDeadline - System.nanoTime();
+
+            if ( remaining > 0 ) {
+                timeOut = getMFTController().timer.schedule(() -> timeOutExpired(generation), remaining, TimeUnit.NANOSECONDS);
+            } else {
+                timeOut = null;
+                setTargetValue(timeOutTargetValue);
+            }
+
         }
 
         private MidiFighterTwisterController getMFTController() {
             return (MidiFighterTwisterController) getController();
         }
 
-        private void handleReceivedMessage( int midiChannel, int value ) {
-            switch ( midiChannel ) {
-                case 0:
-                    handleReceivedValueChange(value);
-                    break;
-                case 1:
-                    handleReceivedPressureChange(value);
-                    break;
-                default:
-                    LOGGER.warning(MessageFormat.format("Unexpected MIDI channe: {0,number,##0}", midiChannel));
-                    break;
+        private void handleReceivedMessage( int midiChannel, int value, long timeStamp, long receptionTime ) {
+
+            //  Knob turns set the target value, and so can button releases
+            //  (clicks in SET_AND_CLICK mode).
+            traceMessageReceived(receptionTime, midiChannel == 0 || value == 0x00);
+
+            try {
+                switch ( midiChannel ) {
+                    case 0:
+                        handleReceivedValueChange(value, timeStamp);
+                        break;
+                    case 1:
+                        handleReceivedPressureChange(value);
+                        break;
+                    default:
+                        LOGGER.warning(MessageFormat.format("Unexpected MIDI channe: {0,number,##0}", midiChannel));
+                        break;
+                }
+            } finally {
+                traceMessageHandled();
             }
+
         }
 
         private void handleReceivedPressureChange( int value ) {
@@ -207,18 +985,17 @@ public class MidiFighterTwisterController extends AbstractMIDIController {
                     break;
                 case SET_AND_CLICK:
 
-                    timeOutLastOperation = System.currentTimeMillis();
+                    postponeTimeOut();
 
                     switch ( value ) {
                         case 0x00:  //  Button released.
 
                             if ( System.currentTimeMillis() - pressedTime < CLICK_DETECTION_TIME ) {
 
-                                stopTimeOutThread = true;
-                                timeOutThread = null;
+                                cancelTimeOut();
 
                                 setTargetValue(pressedTargetValue);
-                                getControllable().fireTargeValueSet();
+                                fireTargetValueSet();
 
                             }
 
@@ -243,7 +1020,7 @@ public class MidiFighterTwisterController extends AbstractMIDIController {
                     switch ( value ) {
                         case 0x00:  //  Button released.
                             setFineResolution(false);
-                            getControllable().fireTargeValueSet();
+                            fireTargetValueSet();
                             break;
                         case 0x7F:  //  Button pressed.
                             setFineResolution(true);
@@ -259,67 +1036,35 @@ public class MidiFighterTwisterController extends AbstractMIDIController {
             }
         }
 
-        @SuppressWarnings( "CallToThreadYield" )
-        private void handleReceivedValueChange( int value ) {
+        private void handleReceivedValueChange( int value, long timeStamp ) {
             switch ( getOperatingMode() ) {
                 case CONTINUOUS:
 
                     switch ( value ) {
                         case 0x3F:  //  Counterclockwise.
-                            setTargetValue(getTargetValue() - ( isFineResolution() ? getFineIncrement() : getCoarseIncrement() ));
+                            setTargetValue(getTargetValue() - increment(-1, timeStamp, isFineResolution()));
                             break;
                         case 0x41:  //  Clockwise.
-                            setTargetValue(getTargetValue() + ( isFineResolution() ? getFineIncrement() : getCoarseIncrement() ));
+                            setTargetValue(getTargetValue() + increment(1, timeStamp, isFineResolution()));
                             break;
                         default:
                             LOGGER.warning(MessageFormat.format("This case should neve happen! [{0}]", Integer.toHexString(value)));
                             break;
                     }
 
-                    getControllable().fireTargeValueSet();
+                    fireTargetValueSet();
 
                     break;
                 case SET_AND_CLICK:
                     
-                    timeOutLastOperation = System.currentTimeMillis();
-
-                    if ( timeOutThread == null ) {
-
-                        stopTimeOutThread = false;
-                        timeOutTargetValue = getCurrentValue();
-                        timeOutThread =  new Thread(() -> {
-                            try {
-
-                                while ( System.currentTimeMillis() - timeOutLastOperation < TIME_OUT_DETECTION_TIME ) {
-
-                                    if ( stopTimeOutThread ) {
-                                        return;
-                                    }
-
-                                    Thread.yield();
-
-                                }
-                                
-                                setTargetValue(timeOutTargetValue);
-                                
-                            } finally {
-                                timeOutThread = null;
-                            }
-                        });
-
-                        timeOutThread.setDaemon(true);
-                        timeOutThread.setName("time-out thread – " + getClass().getSimpleName());
-                        timeOutThread.setPriority(Thread.currentThread().getPriority() - 2);
-                        timeOutThread.start();
-
-                    }
+                    armTimeOut();
 
                     switch ( value ) {
                         case 0x3F:  //  Counterclockwise.
-                            setTargetValue(getTargetValue() - ( isFineResolution() ? getFineIncrement() : getCoarseIncrement() ));
+                            setTargetValue(getTargetValue() - increment(-1, timeStamp, isFineResolution()));
                             break;
                         case 0x41:  //  Clockwise.
-                            setTargetValue(getTargetValue() + ( isFineResolution() ? getFineIncrement() : getCoarseIncrement() ));
+                            setTargetValue(getTargetValue() + increment(1, timeStamp, isFineResolution()));
                             break;
                         default:
                             LOGGER.warning(MessageFormat.format("This case should neve happen! [{0}]", Integer.toHexString(value)));
@@ -331,12 +1076,12 @@ public class MidiFighterTwisterController extends AbstractMIDIController {
                     switch ( value ) {
                         case 0x3F:  //  Counterclockwise.
                             if ( isFineResolution() ) {
-                                setTargetValue(getTargetValue() - getCoarseIncrement());
+                                setTargetValue(getTargetValue() - increment(-1, timeStamp, false));
                             }
                             break;
                         case 0x41:  //  Clockwise.
                             if ( isFineResolution() ) {
-                                setTargetValue(getTargetValue() + getCoarseIncrement());
+                                setTargetValue(getTargetValue() + increment(1, timeStamp, false));
                             }
                             break;
                         default:
@@ -350,18 +1095,36 @@ public class MidiFighterTwisterController extends AbstractMIDIController {
             }
         }
 
-        private void initChannel() {
-            currentValueChanged(0, getCurrentValue());
-            tagColorChanged(Color.BLACK, getTagColor());
-        }
-
-        private int midiValue ( double value ) {
-
-            double min = getMinValue();
-            double max = getMaxValue();
+        /**
+         * Return the increment for a detent in the given direction. Coarse
+         * increments are accelerated according to the time elapsed since the
+         * previous detent in the same direction, while fine ones stay linear.
+         *
+         * @param direction -1 for counterclockwise, 1 for clockwise.
+         * @param timeStamp The detent time-stamp, in microseconds.
+         * @param fine      {@code true} if the fine increment must be used.
+         * @return The increment to be applied.
+         */
+        private double increment( int direction, long timeStamp, boolean fine ) {
+
+            long interval = ( direction == lastDetentDirection && lastDetentTimeStamp != Long.MIN_VALUE )
+                          ? timeStamp - lastDetentTimeStamp
+                          : -1L;
+
+            lastDetentDirection = direction;
+            lastDetentTimeStamp = timeStamp;
+
+            if ( fine ) {
+                return getFineIncrement();
+            } else {
+                return getCoarseIncrement() * accelerationFactor(interval);
+            }
 
-            return (int) Math.round(127.0 * ( value - min ) / ( max - min ));
+        }
 
+        private void initChannel() {
+            showCurrentValue(MIDIPriority.BULK);
+            showTagColor(MIDIPriority.BULK, getTagColor());
         }
 
         private void resetChannel() {
@@ -369,8 +1132,25 @@ public class MidiFighterTwisterController extends AbstractMIDIController {
         }
 
         private void resetChannel( int channel ) {
-            getMFTController().send(ShortMessage.CONTROL_CHANGE, 0, channel, 0, -1);
-            getMFTController().send(ShortMessage.CONTROL_CHANGE, 1, channel, 0, -1);
+            getMFTController().sendToChannel(MIDIPriority.BULK, 0, channel, 0);
+            getMFTController().sendToChannel(MIDIPriority.BULK, 1, channel, 0);
+        }
+
+        /**
+         * Send the current value to the device ring, reading channel, value
+         * and range from the same state snapshot.
+         */
+        private void showCurrentValue( MIDIPriority priority ) {
+
+            ControllableState s = getState();
+
+            getMFTController().sendToChannel(priority, 0, s.getChannel(), s.midiValue(s.getCurrentValue()));
+
+        }
+
+        private void showTagColor( MIDIPriority priority, Color color ) {
+            getMFTController().sendToChannel(priority, 1, getChannel(), midiColor(color));
+            setTagColor(Color.hsb(color.getHue(), 1.0, 1.0));
         }
 
     }
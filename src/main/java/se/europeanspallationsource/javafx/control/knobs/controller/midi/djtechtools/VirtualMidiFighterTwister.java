@@ -0,0 +1,218 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2017 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.javafx.control.knobs.controller.midi.djtechtools;
+
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.sound.midi.InvalidMidiDataException;
+import javax.sound.midi.MidiMessage;
+import javax.sound.midi.ShortMessage;
+import se.europeanspallationsource.javafx.control.knobs.controller.midi.LoopbackMIDIDevice;
+
+
+/**
+ * An in-process emulation of the DJTECHTOOLS Midi Fighter Twister, configured
+ * with the {@code Controlled-KNOBS.mfs} file, to test and benchmark
+ * {@link MidiFighterTwisterController} without hardware:
+ * <pre>
+ * VirtualMidiFighterTwister twister = new VirtualMidiFighterTwister();
+ * MidiFighterTwisterController controller = new MidiFighterTwisterController(twister);
+ *
+ * twister.turn(3, 20, 2000);
+ * twister.click(3);
+ * int ring = twister.getRingValue(3);
+ * </pre>
+ * Encoders are relative ones (0x3F counterclockwise, 0x41 clockwise on MIDI
+ * channel 0) and push buttons send 0x7F when pressed and 0x00 when released
+ * on MIDI channel 1. Bank buttons send 0x7F on MIDI channel 3, the
+ * controller number being the bank index. The last ring (MIDI channel 0) and
+ * color (MIDI channel 1) values sent by the controller are recorded for each
+ * encoder, as well as the last bank selected by the controller.
+ *
+ * @author Claudio Rosati, European Spallation Source ERIC
+ * @version 1.0.0 18 Oct 2026
+ */
+public class VirtualMidiFighterTwister extends LoopbackMIDIDevice {
+
+    private static final int BANKS = 4;
+    private static final int ENCODERS = 128;
+    private static final Logger LOGGER = Logger.getLogger(VirtualMidiFighterTwister.class.getName());
+
+    private volatile int bank = 0;
+    private final AtomicIntegerArray colorValues = new AtomicIntegerArray(ENCODERS);
+    private final AtomicLong controlChanges = new AtomicLong();
+    private final AtomicIntegerArray ringValues = new AtomicIntegerArray(ENCODERS);
+
+    public VirtualMidiFighterTwister() {
+        super(MidiFighterTwisterController.IDENTIFIER);
+    }
+
+    /**
+     * Press and immediately release the push button of the given encoder.
+     *
+     * @param encoder The encoder channel.
+     */
+    public void click( int encoder ) {
+        press(encoder);
+        release(encoder);
+    }
+
+    /**
+     * @return The bank currently shown, as selected by the bank buttons or
+     *         the controller.
+     */
+    public int getBank() {
+        return bank;
+    }
+
+    /**
+     * @param encoder The encoder channel.
+     * @return The last color value sent by the controller for the given
+     *         encoder.
+     */
+    public int getColorValue( int encoder ) {
+        return colorValues.get(encoder);
+    }
+
+    /**
+     * @return The number of control change messages sent by the controller.
+     */
+    public long getControlChanges() {
+        return controlChanges.get();
+    }
+
+    /**
+     * @param encoder The encoder channel.
+     * @return The last ring value sent by the controller for the given
+     *         encoder.
+     */
+    public int getRingValue( int encoder ) {
+        return ringValues.get(encoder);
+    }
+
+    /**
+     * Press the given bank button, making the device show the given bank.
+     *
+     * @param bank The bank index, in the [0, 3] range.
+     */
+    public void pressBankButton( int bank ) {
+        this.bank = bank;
+        inject(3, bank, 0x7F, -1);
+    }
+
+    /**
+     * Press the push button of the given encoder.
+     *
+     * @param encoder The encoder channel.
+     */
+    public void press( int encoder ) {
+        inject(1, encoder, 0x7F, -1);
+    }
+
+    /**
+     * Release the push button of the given encoder.
+     *
+     * @param encoder The encoder channel.
+     */
+    public void release( int encoder ) {
+        inject(1, encoder, 0x00, -1);
+    }
+
+    /**
+     * Turn the given encoder by the given number of detents, all with the
+     * same time-stamp (i.e. the fastest possible turn).
+     *
+     * @param encoder The encoder channel.
+     * @param detents The number of detents: positive clockwise, negative
+     *                counterclockwise.
+     */
+    public void turn( int encoder, int detents ) {
+        turn(encoder, detents, 0L);
+    }
+
+    /**
+     * Turn the given encoder by the given number of detents, time-stamping
+     * them the given interval apart (the messages are injected immediately).
+     *
+     * @param encoder  The encoder channel.
+     * @param detents  The number of detents: positive clockwise, negative
+     *                 counterclockwise.
+     * @param interval The time between two detents, in microseconds.
+     */
+    public void turn( int encoder, int detents, long interval ) {
+
+        int value = detents >= 0 ? 0x41 : 0x3F;
+        int count = Math.abs(detents);
+        long timeStamp = getMicrosecondPosition();
+
+        for ( int i = 0; i < count; i++ ) {
+            inject(0, encoder, value, timeStamp);
+            timeStamp += interval;
+        }
+
+    }
+
+    @Override
+    protected void received( MidiMessage message, long timeStamp ) {
+        if ( message instanceof ShortMessage ) {
+
+            ShortMessage smsg = (ShortMessage) message;
+
+            if ( smsg.getCommand() == ShortMessage.CONTROL_CHANGE ) {
+
+                int encoder = smsg.getData1();
+
+                controlChanges.incrementAndGet();
+
+                switch ( smsg.getChannel() ) {
+                    case 0:
+                        ringValues.set(encoder, smsg.getData2());
+                        break;
+                    case 1:
+                        colorValues.set(encoder, smsg.getData2());
+                        break;
+                    case 3:
+                        if ( encoder < BANKS && smsg.getData2() == 0x7F ) {
+                            bank = encoder;
+                        }
+                        break;
+                }
+
+            } else if ( smsg.getStatus() == ShortMessage.SYSTEM_RESET ) {
+                for ( int i = 0; i < ENCODERS; i++ ) {
+                    ringValues.set(i, 0);
+                    colorValues.set(i, 0);
+                }
+
+                bank = 0;
+            }
+
+        }
+    }
+
+    private void inject( int midiChannel, int encoder, int value, long timeStamp ) {
+        try {
+            inject(new ShortMessage(ShortMessage.CONTROL_CHANGE, midiChannel, encoder, value), timeStamp);
+        } catch ( InvalidMidiDataException ex ) {
+            LOGGER.log(Level.WARNING, "Invalid encoder.", ex);
+        }
+    }
+
+}
@@ -17,6 +17,10 @@
 package se.europeanspallationsource.javafx.control.knobs.controller.spi;
 
 
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.DoubleConsumer;
 import se.europeanspallationsource.javafx.control.knobs.controller.Controllable;
 
 
@@ -35,6 +39,19 @@ public interface Controller {
      */
     public void add( Controllable controllable );
 
+    /**
+     * Called once, after this controller was instantiated as a service, to
+     * create the controllers of the other devices identical to the one of
+     * this controller, each one with its own unique identifier.
+     * <P>
+     * This default implementation returns an empty list.
+     *
+     * @return The controllers of the other identical devices.
+     */
+    public default List<Controller> createSiblings() {
+        return Collections.emptyList();
+    }
+
     /**
      * Called to perform specific resource disposal.
      * <P>
@@ -61,4 +78,18 @@ public interface Controller {
      */
     public boolean reset();
 
+    /**
+     * Put the controller in its initial, well-known state without blocking
+     * the caller.
+     * <P>
+     * Cancelling the returned future stops the reset as soon as possible.
+     *
+     * @param progressListener If not {@code null}, it will be notified of the
+     *                         reset progress, in the [0, 1] range.
+     * @return A future completed with {@code true} on success.
+     */
+    public default CompletableFuture<Boolean> resetAsync( DoubleConsumer progressListener ) {
+        return CompletableFuture.supplyAsync(this::reset);
+    }
+
 }
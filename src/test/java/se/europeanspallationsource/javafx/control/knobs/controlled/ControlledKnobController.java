@@ -85,7 +85,7 @@ public class ControlledKnobController implements Initializable {
     @Override
     public void initialize( URL location, ResourceBundle resources ) {
 
-        //  Get the MIDI device.
+        //  Start the background discovery of MIDI devices.
         Controllers.get();
 
         propertySheet.setPropertyEditorFactory(new ControlledKnobPropertyEditorFactory());
@@ -0,0 +1,394 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2017 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.javafx.control.knobs.controlled;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.testfx.api.FxToolkit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+
+/**
+ * Tests of the throttling and batching of target values performed by
+ * {@link TargetSinkDispatcher}.
+ *
+ * @author Claudio Rosati, European Spallation Source ERIC
+ * @version 1.0.0 18 Oct 2026
+ */
+public class TargetSinkDispatcherTest {
+
+    private static final long INTERVAL = 100;
+
+    /**
+     * Tolerance on the scheduling of writes, in milliseconds.
+     */
+    private static final long SLACK = 10;
+
+    @BeforeClass
+    public static void setUpClass() throws TimeoutException {
+        FxToolkit.registerPrimaryStage();
+    }
+
+    private TargetSinkDispatcher dispatcher = null;
+    private final ControlledKnob knob1 = new ControlledKnob();
+    private final ControlledKnob knob2 = new ControlledKnob();
+    private final RecordingSink sink = new RecordingSink(INTERVAL, 1);
+
+    @After
+    public void tearDown() {
+        if ( dispatcher != null ) {
+            dispatcher.release();
+        }
+    }
+
+    @Test( timeout = 10000 )
+    public void testLeading() throws InterruptedException {
+
+        dispatcher = TargetSinkDispatcher.acquire(sink);
+
+        long start = System.nanoTime();
+
+        dispatcher.targetSet(knob1, 1, TargetThrottle.LEADING);
+        dispatcher.targetSet(knob1, 2, TargetThrottle.LEADING);
+        dispatcher.targetSet(knob1, 3, TargetThrottle.LEADING);
+
+        Write write = sink.poll();
+
+        assertEquals(map(knob1, 1.0), write.targets);
+        assertTrue(write.time - start < TimeUnit.MILLISECONDS.toNanos(INTERVAL / 2));
+
+        //  The following values are discarded.
+        sink.assertNoWrite(3 * INTERVAL);
+
+    }
+
+    @Test( timeout = 10000 )
+    public void testTrailing() throws InterruptedException {
+
+        dispatcher = TargetSinkDispatcher.acquire(sink);
+
+        long start = System.nanoTime();
+
+        dispatcher.targetSet(knob1, 1, TargetThrottle.TRAILING);
+        dispatcher.targetSet(knob1, 2, TargetThrottle.TRAILING);
+        dispatcher.targetSet(knob1, 3, TargetThrottle.TRAILING);
+
+        Write write = sink.poll();
+
+        assertEquals(map(knob1, 3.0), write.targets);
+        assertTrue(write.time - start >= TimeUnit.MILLISECONDS.toNanos(INTERVAL - SLACK));
+
+        sink.assertNoWrite(3 * INTERVAL);
+
+    }
+
+    @Test( timeout = 10000 )
+    public void testLeadingAndTrailing() throws InterruptedException {
+
+        dispatcher = TargetSinkDispatcher.acquire(sink);
+
+        dispatcher.targetSet(knob1, 1, TargetThrottle.LEADING_AND_TRAILING);
+
+        Write leading = sink.poll();
+
+        //  Set after the leading write, otherwise they would replace the
+        //  value still waiting to be written.
+        dispatcher.targetSet(knob1, 2, TargetThrottle.LEADING_AND_TRAILING);
+        dispatcher.targetSet(knob1, 3, TargetThrottle.LEADING_AND_TRAILING);
+
+        Write trailing = sink.poll();
+
+        assertEquals(map(knob1, 1.0), leading.targets);
+        assertEquals(map(knob1, 3.0), trailing.targets);
+        assertTrue(trailing.time - leading.time >= TimeUnit.MILLISECONDS.toNanos(INTERVAL - SLACK));
+
+        sink.assertNoWrite(3 * INTERVAL);
+
+    }
+
+    @Test( timeout = 10000 )
+    public void testBatching() throws InterruptedException {
+
+        CompletableFuture<Void> completion = new CompletableFuture<>();
+        ControlledKnob knob3 = new ControlledKnob();
+
+        sink.completion = completion;
+        dispatcher = TargetSinkDispatcher.acquire(sink);
+
+        //  Keep the sink busy, so that the following values are all due when
+        //  the write completes.
+        dispatcher.targetSet(knob3, 0, TargetThrottle.LEADING);
+
+        assertEquals(map(knob3, 0.0), sink.poll().targets);
+
+        sink.completion = null;
+
+        dispatcher.targetSet(knob2, 2, TargetThrottle.LEADING_AND_TRAILING);
+        dispatcher.targetSet(knob1, 1, TargetThrottle.LEADING_AND_TRAILING);
+        dispatcher.targetSet(knob2, 3, TargetThrottle.LEADING_AND_TRAILING);
+        completion.complete(null);
+
+        Write write = sink.poll();
+
+        //  Both knobs in one write, in the order they were first set.
+        assertEquals(Arrays.asList(knob2, knob1), new ArrayList<>(write.targets.keySet()));
+        assertEquals(map(knob2, 3.0, knob1, 1.0), write.targets);
+
+        sink.assertNoWrite(3 * INTERVAL);
+
+    }
+
+    @Test( timeout = 10000 )
+    public void testWritesAreSpaced() throws InterruptedException {
+
+        dispatcher = TargetSinkDispatcher.acquire(sink);
+
+        for ( int i = 0; i <= 50; i++ ) {
+            dispatcher.targetSet(i % 2 == 0 ? knob1 : knob2, i, TargetThrottle.LEADING_AND_TRAILING);
+            Thread.sleep(10);
+        }
+
+        List<Write> writes = new ArrayList<>();
+        Map<ControlledKnob, Double> last = new LinkedHashMap<>();
+
+        //  Wait for the last trailing write.
+        while ( !map(knob1, 50.0, knob2, 49.0).equals(last) ) {
+
+            Write write = sink.poll();
+
+            writes.add(write);
+            last.putAll(write.targets);
+
+        }
+
+        for ( int i = 1; i < writes.size(); i++ ) {
+            assertTrue(writes.get(i).time - writes.get(i - 1).time >= TimeUnit.MILLISECONDS.toNanos(INTERVAL - SLACK));
+        }
+
+        //  About 500 ms of values, at most one write per interval.
+        assertTrue(String.valueOf(writes.size()), writes.size() <= 7);
+
+        sink.assertNoWrite(3 * INTERVAL);
+
+    }
+
+    @Test( timeout = 10000 )
+    public void testMaxInFlight() throws InterruptedException {
+
+        CompletableFuture<Void> completion = new CompletableFuture<>();
+
+        sink.completion = completion;
+        dispatcher = TargetSinkDispatcher.acquire(sink);
+
+        dispatcher.targetSet(knob1, 1, TargetThrottle.LEADING_AND_TRAILING);
+
+        assertEquals(map(knob1, 1.0), sink.poll().targets);
+
+        //  While the write is in progress, new values replace the pending one.
+        Thread.sleep(2 * INTERVAL);
+
+        sink.completion = null;
+
+        dispatcher.targetSet(knob1, 2, TargetThrottle.LEADING_AND_TRAILING);
+        dispatcher.targetSet(knob1, 3, TargetThrottle.LEADING_AND_TRAILING);
+        dispatcher.targetSet(knob1, 4, TargetThrottle.LEADING_AND_TRAILING);
+
+        sink.assertNoWrite(3 * INTERVAL);
+        completion.complete(null);
+
+        assertEquals(map(knob1, 4.0), sink.poll().targets);
+
+        sink.assertNoWrite(3 * INTERVAL);
+
+    }
+
+    @Test( timeout = 10000 )
+    public void testFailedWrite() throws InterruptedException {
+
+        CompletableFuture<Void> completion = new CompletableFuture<>();
+
+        completion.completeExceptionally(new IllegalStateException("Test failure."));
+
+        sink.completion = completion;
+        dispatcher = TargetSinkDispatcher.acquire(sink);
+
+        dispatcher.targetSet(knob1, 1, TargetThrottle.LEADING);
+
+        assertEquals(map(knob1, 1.0), sink.poll().targets);
+
+        //  A failed write doesn't stop the following ones.
+        sink.completion = null;
+
+        dispatcher.targetSet(knob1, 2, TargetThrottle.TRAILING);
+
+        assertEquals(map(knob1, 2.0), sink.poll().targets);
+
+    }
+
+    @Test( timeout = 10000 )
+    public void testRemove() throws InterruptedException {
+
+        dispatcher = TargetSinkDispatcher.acquire(sink);
+
+        dispatcher.targetSet(knob1, 1, TargetThrottle.TRAILING);
+        dispatcher.targetSet(knob2, 2, TargetThrottle.TRAILING);
+        dispatcher.remove(knob1);
+
+        assertEquals(map(knob2, 2.0), sink.poll().targets);
+
+        sink.assertNoWrite(3 * INTERVAL);
+
+    }
+
+    @Test( timeout = 10000 )
+    public void testEntriesAreDropped() throws InterruptedException {
+
+        dispatcher = TargetSinkDispatcher.acquire(sink);
+
+        dispatcher.targetSet(knob1, 1, TargetThrottle.LEADING);
+
+        assertEquals(map(knob1, 1.0), sink.poll().targets);
+
+        //  No more target values are set: the knob must be released once
+        //  its window is over, without waiting for another write.
+        sink.assertNoWrite(3 * INTERVAL);
+        assertEquals(0, dispatcher.size());
+
+    }
+
+    @Test
+    public void testSharing() {
+
+        dispatcher = TargetSinkDispatcher.acquire(sink);
+
+        TargetSinkDispatcher shared = TargetSinkDispatcher.acquire(sink);
+
+        assertTrue(dispatcher == shared);
+
+        shared.release();
+
+        assertTrue(dispatcher == TargetSinkDispatcher.acquire(sink));
+
+        dispatcher.release();
+        dispatcher.release();
+
+        //  Fully released: a new dispatcher is created.
+        dispatcher = TargetSinkDispatcher.acquire(sink);
+
+        assertTrue(dispatcher != shared);
+
+    }
+
+    private static Map<ControlledKnob, Double> map( ControlledKnob knob, double value ) {
+
+        Map<ControlledKnob, Double> map = new LinkedHashMap<>();
+
+        map.put(knob, value);
+
+        return map;
+
+    }
+
+    private static Map<ControlledKnob, Double> map( ControlledKnob knob1, double value1, ControlledKnob knob2, double value2 ) {
+
+        Map<ControlledKnob, Double> map = map(knob1, value1);
+
+        map.put(knob2, value2);
+
+        return map;
+
+    }
+
+    /**
+     * A sink recording the writes it receives.
+     */
+    private static class RecordingSink implements TargetSink {
+
+        volatile CompletionStage<?> completion = null;
+        private final long interval;
+        private final int maxInFlight;
+        private final BlockingQueue<Write> writes = new LinkedBlockingQueue<>();
+
+        RecordingSink( long interval, int maxInFlight ) {
+            this.interval = interval;
+            this.maxInFlight = maxInFlight;
+        }
+
+        @Override
+        public long getInterval() {
+            return interval;
+        }
+
+        @Override
+        public int getMaxInFlight() {
+            return maxInFlight;
+        }
+
+        @Override
+        public CompletionStage<?> write( Map<ControlledKnob, Double> targets ) {
+
+            writes.add(new Write(System.nanoTime(), new LinkedHashMap<>(targets)));
+
+            return completion;
+
+        }
+
+        void assertNoWrite( long millis ) throws InterruptedException {
+            assertNull(writes.poll(millis, TimeUnit.MILLISECONDS));
+        }
+
+        Write poll() throws InterruptedException {
+
+            Write write = writes.poll(10 * interval, TimeUnit.MILLISECONDS);
+
+            assertTrue("Write not performed in time.", write != null);
+
+            return write;
+
+        }
+
+    }
+
+    private static class Write {
+
+        final Map<ControlledKnob, Double> targets;
+        final long time;
+
+        Write( long time, Map<ControlledKnob, Double> targets ) {
+            this.time = time;
+            this.targets = targets;
+        }
+
+    }
+
+}
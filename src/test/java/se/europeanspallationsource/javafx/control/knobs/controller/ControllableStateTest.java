@@ -0,0 +1,181 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2017 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.javafx.control.knobs.controller;
+
+
+import javafx.scene.paint.Color;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+
+/**
+ * Tests of {@link ControllableState}.
+ *
+ * @author Claudio Rosati, European Spallation Source ERIC
+ * @version 1.0.0 18 Oct 2026
+ */
+public class ControllableStateTest {
+
+    private static final double EPSILON = 1E-9;
+
+    @Test
+    public void testOf() {
+
+        TestControllable controllable = new TestControllable(7);
+
+        controllable.accelerationProperty().set(2);
+        controllable.coarseIncrementProperty().set(3);
+        controllable.currentValueProperty().set(-4);
+        controllable.disabledProperty().set(true);
+        controllable.fineIncrementProperty().set(0.5);
+        controllable.fineResolutionProperty().set(true);
+        controllable.maxValueProperty().set(10);
+        controllable.minValueProperty().set(-10);
+        controllable.operatingModeProperty().set(Controllable.OperatingMode.SET_AND_CLICK);
+        controllable.tagColorProperty().set(Color.RED);
+        controllable.targetValueProperty().set(6);
+
+        ControllableState state = ControllableState.of(controllable);
+
+        assertEquals(2, state.getAcceleration(), EPSILON);
+        assertEquals(7, state.getChannel());
+        assertEquals(3, state.getCoarseIncrement(), EPSILON);
+        assertEquals(-4, state.getCurrentValue(), EPSILON);
+        assertTrue(state.isDisabled());
+        assertEquals(0.5, state.getFineIncrement(), EPSILON);
+        assertEquals(10, state.getMaxValue(), EPSILON);
+        assertEquals(-10, state.getMinValue(), EPSILON);
+        assertSame(Controllable.OperatingMode.SET_AND_CLICK, state.getOperatingMode());
+        assertSame(Color.RED, state.getTagColor());
+        assertEquals(6, state.getTargetValue(), EPSILON);
+
+        //  Fine resolution is a device state, always starting off.
+        assertFalse(state.isFineResolution());
+
+    }
+
+    @Test
+    public void testSnapshotIsNotLive() {
+
+        TestControllable controllable = new TestControllable(0);
+        ControllableState state = ControllableState.of(controllable);
+
+        controllable.currentValueProperty().set(80);
+        controllable.maxValueProperty().set(200);
+
+        assertEquals(50, state.getCurrentValue(), EPSILON);
+        assertEquals(100, state.getMaxValue(), EPSILON);
+
+    }
+
+    @Test
+    public void testWithReturnsNewSnapshot() {
+
+        ControllableState state = ControllableState.of(new TestControllable(1));
+        ControllableState changed = state.withCurrentValue(75)
+            .withTargetValue(25)
+            .withMaxValue(200)
+            .withMinValue(-200)
+            .withChannel(2)
+            .withDisabled(true)
+            .withFineResolution(true)
+            .withTagColor(Color.BLUE);
+
+        assertNotSame(state, changed);
+
+        assertEquals(50, state.getCurrentValue(), EPSILON);
+        assertEquals(50, state.getTargetValue(), EPSILON);
+        assertEquals(100, state.getMaxValue(), EPSILON);
+        assertEquals(0, state.getMinValue(), EPSILON);
+        assertEquals(1, state.getChannel());
+        assertFalse(state.isDisabled());
+        assertFalse(state.isFineResolution());
+        assertSame(Color.WHITE, state.getTagColor());
+
+        assertEquals(75, changed.getCurrentValue(), EPSILON);
+        assertEquals(25, changed.getTargetValue(), EPSILON);
+        assertEquals(200, changed.getMaxValue(), EPSILON);
+        assertEquals(-200, changed.getMinValue(), EPSILON);
+        assertEquals(2, changed.getChannel());
+        assertTrue(changed.isDisabled());
+        assertTrue(changed.isFineResolution());
+        assertSame(Color.BLUE, changed.getTagColor());
+
+        //  Unchanged fields are carried over.
+        assertEquals(state.getCoarseIncrement(), changed.getCoarseIncrement(), EPSILON);
+        assertEquals(state.getFineIncrement(), changed.getFineIncrement(), EPSILON);
+        assertSame(state.getOperatingMode(), changed.getOperatingMode());
+
+    }
+
+    @Test
+    public void testClamp() {
+
+        ControllableState state = ControllableState.of(new TestControllable(0)).withMinValue(-10).withMaxValue(10);
+
+        assertEquals(-10, state.clamp(-11), EPSILON);
+        assertEquals(-10, state.clamp(Double.NEGATIVE_INFINITY), EPSILON);
+        assertEquals(-10, state.clamp(-10), EPSILON);
+        assertEquals(3.5, state.clamp(3.5), EPSILON);
+        assertEquals(10, state.clamp(10), EPSILON);
+        assertEquals(10, state.clamp(1E6), EPSILON);
+
+    }
+
+    @Test
+    public void testMidiValue() {
+
+        ControllableState state = ControllableState.of(new TestControllable(0)).withMinValue(-127).withMaxValue(127);
+
+        assertEquals(0, state.midiValue(-127));
+        assertEquals(64, state.midiValue(1));
+        assertEquals(127, state.midiValue(127));
+
+        //  Out of range values are clamped to the MIDI range.
+        assertEquals(0, state.midiValue(-1000));
+        assertEquals(127, state.midiValue(1000));
+
+    }
+
+    @Test
+    public void testMidiValueFollowsRangeChanges() {
+
+        ControllableState state = ControllableState.of(new TestControllable(0));
+
+        assertEquals(127, state.midiValue(100));
+        assertEquals(64, state.withMaxValue(200).midiValue(100));
+        assertEquals(0, state.withMinValue(100).withMaxValue(200).midiValue(100));
+
+    }
+
+    @Test
+    public void testMidiValueOfEmptyRange() {
+
+        ControllableState state = ControllableState.of(new TestControllable(0)).withMinValue(5).withMaxValue(5);
+
+        assertEquals(0, state.midiValue(5));
+        assertEquals(0, state.midiValue(100));
+        assertEquals(0, state.withMinValue(10).midiValue(7));
+
+    }
+
+}
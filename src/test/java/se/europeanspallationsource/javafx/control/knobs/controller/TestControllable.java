@@ -0,0 +1,133 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2017 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.javafx.control.knobs.controller;
+
+
+import java.util.concurrent.atomic.AtomicInteger;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.scene.paint.Color;
+
+
+/**
+ * A {@link Controllable} made of plain properties, all writable, to be used
+ * in tests in place of a knob.
+ *
+ * @author Claudio Rosati, European Spallation Source ERIC
+ * @version 1.0.0 18 Oct 2026
+ */
+public class TestControllable implements Controllable {
+
+    private final SimpleDoubleProperty acceleration = new SimpleDoubleProperty(this, "acceleration", 0);
+    private final SimpleIntegerProperty channel;
+    private final SimpleDoubleProperty coarseIncrement = new SimpleDoubleProperty(this, "coarseIncrement", 1);
+    private final SimpleDoubleProperty currentValue = new SimpleDoubleProperty(this, "currentValue", 50);
+    private final SimpleBooleanProperty disabled = new SimpleBooleanProperty(this, "disabled", false);
+    private final SimpleDoubleProperty fineIncrement = new SimpleDoubleProperty(this, "fineIncrement", 0.1);
+    private final SimpleBooleanProperty fineResolution = new SimpleBooleanProperty(this, "fineResolution", false);
+    private final SimpleDoubleProperty maxValue = new SimpleDoubleProperty(this, "maxValue", 100);
+    private final SimpleDoubleProperty minValue = new SimpleDoubleProperty(this, "minValue", 0);
+    private final SimpleObjectProperty<OperatingMode> operatingMode = new SimpleObjectProperty<>(this, "operatingMode", OperatingMode.CONTINUOUS);
+    private final SimpleObjectProperty<Color> tagColor = new SimpleObjectProperty<>(this, "tagColor", Color.WHITE);
+    private final AtomicInteger targetValueSetCount = new AtomicInteger();
+    private final SimpleDoubleProperty targetValue = new SimpleDoubleProperty(this, "targetValue", 50);
+
+    /**
+     * Create a new controllable on the given channel, with a [0, 100] range
+     * and both current and target values set to 50.
+     *
+     * @param channel The controllable's channel.
+     */
+    public TestControllable( int channel ) {
+        this.channel = new SimpleIntegerProperty(this, "channel", channel);
+    }
+
+    @Override
+    public SimpleDoubleProperty accelerationProperty() {
+        return acceleration;
+    }
+
+    @Override
+    public SimpleIntegerProperty channelProperty() {
+        return channel;
+    }
+
+    @Override
+    public SimpleDoubleProperty coarseIncrementProperty() {
+        return coarseIncrement;
+    }
+
+    @Override
+    public SimpleDoubleProperty currentValueProperty() {
+        return currentValue;
+    }
+
+    @Override
+    public SimpleBooleanProperty disabledProperty() {
+        return disabled;
+    }
+
+    @Override
+    public SimpleDoubleProperty fineIncrementProperty() {
+        return fineIncrement;
+    }
+
+    @Override
+    public SimpleBooleanProperty fineResolutionProperty() {
+        return fineResolution;
+    }
+
+    @Override
+    public void fireTargeValueSet() {
+        targetValueSetCount.incrementAndGet();
+    }
+
+    /**
+     * @return The number of times {@link #fireTargeValueSet()} was called.
+     */
+    public int getTargetValueSetCount() {
+        return targetValueSetCount.get();
+    }
+
+    @Override
+    public SimpleDoubleProperty maxValueProperty() {
+        return maxValue;
+    }
+
+    @Override
+    public SimpleDoubleProperty minValueProperty() {
+        return minValue;
+    }
+
+    @Override
+    public SimpleObjectProperty<OperatingMode> operatingModeProperty() {
+        return operatingMode;
+    }
+
+    @Override
+    public SimpleObjectProperty<Color> tagColorProperty() {
+        return tagColor;
+    }
+
+    @Override
+    public SimpleDoubleProperty targetValueProperty() {
+        return targetValue;
+    }
+
+}
@@ -0,0 +1,273 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2017 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.javafx.control.knobs.controller.midi;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import javax.sound.midi.MidiMessage;
+import javax.sound.midi.ShortMessage;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import se.europeanspallationsource.javafx.control.knobs.controller.Controllable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+
+/**
+ * Tests of the {@link AbstractMIDIController} output thread: wake-up after
+ * being parked on an empty queue, coalescing, priority and pacing.
+ *
+ * @author Claudio Rosati, European Spallation Source ERIC
+ * @version 1.0.0 18 Oct 2026
+ */
+public class AbstractMIDIControllerTest {
+
+    private static final long TIMEOUT = 1000;
+
+    private TestController controller;
+    private RecordingMIDIDevice device;
+
+    @Before
+    public void setUp() {
+        device = new RecordingMIDIDevice();
+        controller = new TestController(device);
+    }
+
+    @After
+    public void tearDown() {
+        controller.dispose();
+    }
+
+    @Test( timeout = 10000 )
+    public void testWriterWakesUpAfterIdle() throws InterruptedException {
+
+        for ( int i = 0; i < 5; i++ ) {
+
+            //  Give the writer time to park on the empty queue.
+            Thread.sleep(100);
+
+            assertTrue(controller.send(ShortMessage.CONTROL_CHANGE, 0, 1, i, -1L));
+            assertEquals("0/1=" + i, device.poll());
+
+        }
+
+    }
+
+    @Test( timeout = 10000 )
+    public void testWriterWakesUpRepeatedly() throws InterruptedException {
+
+        //  Sends racing with the writer parking must never be lost.
+        for ( int i = 0; i < 2000; i++ ) {
+
+            controller.send(ShortMessage.CONTROL_CHANGE, 0, i % 128, 1, -1L);
+
+            assertNotNull(device.poll());
+
+            if ( i % 2 == 0 ) {
+                Thread.yield();
+            }
+
+        }
+
+    }
+
+    @Test( timeout = 10000 )
+    public void testOrderedMessagesAreNotCoalesced() throws InterruptedException {
+
+        for ( int i = 0; i < 10; i++ ) {
+            controller.sendInOrder(ShortMessage.CONTROL_CHANGE, 0, 1, i, -1L);
+        }
+
+        for ( int i = 0; i < 10; i++ ) {
+            assertEquals("0/1=" + i, device.poll());
+        }
+
+    }
+
+    @Test( timeout = 10000 )
+    public void testControlChangeAfterOrderedMessage() throws InterruptedException {
+
+        controller.setBurstSize(1);
+        controller.setRateLimit(20);
+
+        //  The first one is held by the paced writer while the others are queued.
+        controller.send(MIDIPriority.BULK, ShortMessage.CONTROL_CHANGE, 0, 1, 1, -1L);
+        controller.send(MIDIPriority.BULK, ShortMessage.CONTROL_CHANGE, 0, 2, 1, -1L);
+        controller.sendInOrder(MIDIPriority.BULK, ShortMessage.CONTROL_CHANGE, 1, 0, 1, -1L);
+        controller.send(MIDIPriority.BULK, ShortMessage.CONTROL_CHANGE, 0, 2, 2, -1L);
+
+        List<String> received = new ArrayList<>();
+        String message;
+
+        do {
+            message = device.poll();
+            received.add(message);
+        } while ( !"0/2=2".equals(message) );
+
+        assertTrue(received.toString(), received.indexOf("1/0=1") >= 0);
+        assertTrue(received.toString(), received.indexOf("1/0=1") < received.indexOf("0/2=2"));
+
+    }
+
+    @Test( timeout = 10000 )
+    public void testPacedOutputIsCoalesced() throws InterruptedException {
+
+        controller.setBurstSize(1);
+        controller.setRateLimit(20);
+
+        for ( int i = 0; i < 100; i++ ) {
+            controller.send(ShortMessage.CONTROL_CHANGE, 0, 1, i, -1L);
+        }
+
+        List<String> received = new ArrayList<>();
+        String message;
+
+        do {
+            message = device.poll();
+            received.add(message);
+        } while ( !"0/1=99".equals(message) );
+
+        assertTrue(received.toString(), received.size() < 10);
+
+    }
+
+    @Test( timeout = 10000 )
+    public void testPacedOutputRate() throws InterruptedException {
+
+        controller.setBurstSize(1);
+        controller.setRateLimit(50);
+
+        long start = System.nanoTime();
+
+        for ( int i = 0; i < 10; i++ ) {
+            controller.send(ShortMessage.CONTROL_CHANGE, 0, i, 1, -1L);
+        }
+
+        for ( int i = 0; i < 10; i++ ) {
+            assertEquals("0/" + i + "=1", device.poll());
+        }
+
+        //  10 messages at 50 per second, with a burst of 1: at least 9 waits
+        //  of 20 ms.
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(170));
+
+    }
+
+    @Test( timeout = 10000 )
+    public void testAwaitSent() {
+
+        controller.setBurstSize(1);
+        controller.setRateLimit(50);
+
+        for ( int i = 0; i < 10; i++ ) {
+            controller.send(MIDIPriority.BULK, ShortMessage.CONTROL_CHANGE, 0, i, 1, -1L);
+        }
+
+        assertTrue(controller.awaitSent(MIDIPriority.BULK, null));
+        assertEquals(10, device.getReceivedMessages());
+
+    }
+
+    @Test( timeout = 10000 )
+    public void testPriorityPreemption() throws InterruptedException {
+
+        controller.setBurstSize(1);
+        controller.setRateLimit(10);
+
+        for ( int i = 0; i < 5; i++ ) {
+            controller.send(MIDIPriority.BULK, ShortMessage.CONTROL_CHANGE, 0, i, 1, -1L);
+        }
+
+        controller.send(MIDIPriority.FEEDBACK, ShortMessage.CONTROL_CHANGE, 1, 0, 1, -1L);
+
+        List<String> received = new ArrayList<>();
+
+        for ( int i = 0; i < 6; i++ ) {
+            received.add(device.poll());
+        }
+
+        //  At most the first BULK message was already polled by the writer.
+        assertTrue(received.toString(), received.indexOf("1/0=1") <= 1);
+
+    }
+
+    /**
+     * A loopback device recording the control changes it receives.
+     */
+    private static class RecordingMIDIDevice extends LoopbackMIDIDevice {
+
+        private final BlockingQueue<String> messages = new LinkedBlockingQueue<>();
+
+        RecordingMIDIDevice() {
+            super("AbstractMIDIControllerTest");
+        }
+
+        /**
+         * @return The next received message, as "channel/data1=data2".
+         * @throws InterruptedException If interrupted while waiting.
+         */
+        String poll() throws InterruptedException {
+
+            String message = messages.poll(TIMEOUT, TimeUnit.MILLISECONDS);
+
+            assertNotNull("Message not received in time.", message);
+
+            return message;
+
+        }
+
+        @Override
+        protected void received( MidiMessage message, long timeStamp ) {
+            if ( message instanceof ShortMessage ) {
+
+                ShortMessage smsg = (ShortMessage) message;
+
+                messages.add(smsg.getChannel() + "/" + smsg.getData1() + "=" + smsg.getData2());
+
+            }
+        }
+
+    }
+
+    /**
+     * A controller with no controllables, used to drive the output thread.
+     */
+    private static class TestController extends AbstractMIDIController {
+
+        TestController( LoopbackMIDIDevice device ) {
+            super("AbstractMIDIControllerTest", device, device);
+        }
+
+        @Override
+        protected AbstractControllableWrapper createWrapper( Controllable controllable ) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected void midiMessageReceived( MidiMessage message, long timeStamp ) {
+        }
+
+    }
+
+}
@@ -0,0 +1,359 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2017 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.javafx.control.knobs.controller.midi;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import javax.sound.midi.InvalidMidiDataException;
+import javax.sound.midi.ShortMessage;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static se.europeanspallationsource.javafx.control.knobs.controller.midi.MIDIPriority.BULK;
+import static se.europeanspallationsource.javafx.control.knobs.controller.midi.MIDIPriority.FEEDBACK;
+import static se.europeanspallationsource.javafx.control.knobs.controller.midi.MIDIPriority.PROCESS_VALUE;
+
+
+/**
+ * Tests of {@link MIDIOutputQueue}: per-slot coalescing, ordering within a
+ * priority and priority preemption. Messages are drained as the writer
+ * thread of {@link AbstractMIDIController} does.
+ *
+ * @author Claudio Rosati, European Spallation Source ERIC
+ * @version 1.0.0 18 Oct 2026
+ */
+public class MIDIOutputQueueTest {
+
+    private MIDIOutputQueue queue;
+
+    @Before
+    public void setUp() {
+        queue = new MIDIOutputQueue();
+    }
+
+    @Test
+    public void testCoalescingReplacesPendingValue() {
+
+        assertTrue(queue.offer(0, 1, 10, -1L, BULK));
+        assertFalse(queue.offer(0, 1, 20, -1L, BULK));
+        assertFalse(queue.offer(0, 1, 30, -1L, BULK));
+
+        assertEquals(Arrays.asList("0/1=30"), drain());
+        assertTrue(queue.isEmpty());
+
+    }
+
+    @Test
+    public void testCoalescingIsPerSlot() {
+
+        queue.offer(0, 1, 10, -1L, BULK);
+        queue.offer(1, 1, 11, -1L, BULK);
+        queue.offer(0, 2, 12, -1L, BULK);
+        queue.offer(0, 1, 13, -1L, BULK);
+
+        //  The replaced value keeps the position of the first one.
+        assertEquals(Arrays.asList("0/1=13", "1/1=11", "0/2=12"), drain());
+
+    }
+
+    @Test
+    public void testSlotIsQueuedAgainOnceSent() {
+
+        queue.offer(0, 1, 10, -1L, BULK);
+
+        assertEquals(Arrays.asList("0/1=10"), drain());
+        assertTrue(queue.offer(0, 1, 10, -1L, BULK));
+        assertEquals(Arrays.asList("0/1=10"), drain());
+
+    }
+
+    @Test
+    public void testTimeStampAndValueRoundTrip() {
+
+        queue.offer(5, 7, 127, 123456789L, PROCESS_VALUE);
+
+        int slot = queue.poll();
+        long value = queue.take(slot);
+
+        assertEquals(5, MIDIOutputQueue.channelOf(slot));
+        assertEquals(7, MIDIOutputQueue.data1Of(slot));
+        assertEquals(127, MIDIOutputQueue.data2Of(value));
+        assertEquals(123456789L, MIDIOutputQueue.timeStampOf(value));
+        assertEquals(0L, queue.take(slot));
+
+    }
+
+    @Test
+    public void testOrderWithinPriority() throws InvalidMidiDataException {
+
+        queue.offer(0, 1, 1, -1L, PROCESS_VALUE);
+        queue.offerOrdered(message(2), -1L, PROCESS_VALUE);
+        queue.offer(0, 3, 3, -1L, PROCESS_VALUE);
+        queue.offerOrdered(message(4), -1L, PROCESS_VALUE);
+        queue.offerOrdered(message(5), -1L, PROCESS_VALUE);
+        queue.offer(0, 6, 6, -1L, PROCESS_VALUE);
+
+        assertEquals(Arrays.asList("0/1=1", "ordered 2", "0/3=3", "ordered 4", "ordered 5", "0/6=6"), drain());
+
+    }
+
+    @Test
+    public void testPriorityPreemption() throws InvalidMidiDataException {
+
+        queue.offer(0, 1, 1, -1L, BULK);
+        queue.offerOrdered(message(2), -1L, BULK);
+        queue.offer(0, 3, 3, -1L, PROCESS_VALUE);
+        queue.offer(0, 4, 4, -1L, FEEDBACK);
+        queue.offerOrdered(message(5), -1L, FEEDBACK);
+
+        assertEquals(Arrays.asList("0/4=4", "ordered 5", "0/3=3", "0/1=1", "ordered 2"), drain());
+
+    }
+
+    @Test
+    public void testCoalescedValueTakesHighestPriority() {
+
+        queue.offer(0, 1, 1, -1L, BULK);
+        queue.offer(0, 2, 2, -1L, BULK);
+        queue.offer(0, 2, 3, -1L, FEEDBACK);
+
+        //  The stale BULK entry of slot 0/2 is skipped.
+        assertEquals(Arrays.asList("0/2=3", "0/1=1"), drain());
+        assertTrue(queue.isEmpty());
+
+    }
+
+    @Test
+    public void testControlChangeAfterOrderedMessage() throws InvalidMidiDataException {
+
+        queue.offer(0, 1, 10, -1L, BULK);
+        queue.offerOrdered(message(2), -1L, BULK);
+
+        //  Replaces the pending value, but must not overtake the ordered message.
+        assertFalse(queue.offer(0, 1, 20, -1L, BULK));
+
+        assertEquals(Arrays.asList("ordered 2", "0/1=20"), drain());
+        assertTrue(queue.isEmpty());
+
+    }
+
+    @Test
+    public void testControlChangeAfterSeveralOrderedMessages() throws InvalidMidiDataException {
+
+        queue.offer(0, 1, 10, -1L, PROCESS_VALUE);
+        queue.offer(0, 2, 10, -1L, PROCESS_VALUE);
+        queue.offerOrdered(message(3), -1L, PROCESS_VALUE);
+        queue.offerOrdered(message(4), -1L, PROCESS_VALUE);
+        queue.offer(0, 1, 20, -1L, PROCESS_VALUE);
+        queue.offerOrdered(message(5), -1L, PROCESS_VALUE);
+
+        //  Not replaced: slot 0/2 keeps its place.
+        assertEquals(Arrays.asList("0/2=10", "ordered 3", "ordered 4", "0/1=20", "ordered 5"), drain());
+
+    }
+
+    @Test
+    public void testControlChangeAfterHigherPriorityOrderedMessage() throws InvalidMidiDataException {
+
+        queue.offer(0, 1, 10, -1L, BULK);
+        queue.offerOrdered(message(2), -1L, FEEDBACK);
+        queue.offer(0, 1, 20, -1L, FEEDBACK);
+
+        assertEquals(Arrays.asList("ordered 2", "0/1=20"), drain());
+
+    }
+
+    @Test
+    public void testControlChangeReplacedWhileDeferred() throws InvalidMidiDataException {
+
+        queue.offer(0, 1, 10, -1L, BULK);
+        queue.offerOrdered(message(2), -1L, BULK);
+        queue.offer(0, 1, 20, -1L, BULK);
+
+        //  The value is deferred behind the ordered message...
+        int slot = queue.poll();
+
+        assertEquals(MIDIOutputQueue.slot(0, 1), slot);
+        assertEquals(0L, queue.take(slot));
+
+        //  ...where it can still be replaced.
+        queue.offer(0, 1, 30, -1L, BULK);
+
+        assertEquals(Arrays.asList("ordered 2", "0/1=30"), drain());
+        assertTrue(queue.isEmpty());
+
+    }
+
+    @Test
+    public void testRingNeverOverflows() {
+
+        //  Every slot queued in every ring, many times over the ring capacity.
+        for ( int round = 0; round < 8; round++ ) {
+
+            for ( MIDIPriority priority : new MIDIPriority[] { BULK, PROCESS_VALUE, FEEDBACK } ) {
+                for ( int slot = 0; slot < MIDIOutputQueue.SLOTS; slot++ ) {
+                    queue.offer(MIDIOutputQueue.channelOf(slot), MIDIOutputQueue.data1Of(slot), round, -1L, priority);
+                }
+            }
+
+            List<String> drained = drain();
+
+            assertEquals(MIDIOutputQueue.SLOTS, drained.size());
+            assertEquals("0/0=" + round, drained.get(0));
+            assertTrue(queue.isEmpty());
+
+        }
+
+    }
+
+    @Test( timeout = 30000 )
+    public void testConcurrentProducers() throws InterruptedException {
+
+        int producers = 4;
+        int messages = 20000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>(producers);
+
+        for ( int p = 0; p < producers; p++ ) {
+
+            int channel = p;
+            Thread thread = new Thread(() -> {
+                try {
+
+                    start.await();
+
+                    for ( int i = 0; i < messages; i++ ) {
+                        if ( i % 2 == 0 ) {
+                            queue.offerOrdered(new ShortMessage(ShortMessage.NOTE_ON, channel, i % 128, 1), i, BULK);
+                        } else {
+                            queue.offer(channel, i % 128, 1, i, BULK);
+                        }
+                    }
+
+                } catch ( InterruptedException | InvalidMidiDataException ex ) {
+                    throw new RuntimeException(ex);
+                }
+            });
+
+            threads.add(thread);
+            thread.start();
+
+        }
+
+        start.countDown();
+
+        long[] lastOrdered = new long[producers];
+        long[] lastValue = new long[MIDIOutputQueue.SLOTS];
+        int ordered = 0;
+
+        Arrays.fill(lastOrdered, -2L);
+        Arrays.fill(lastValue, -1L);
+
+        //  Ordered messages of a producer come out in the order they were
+        //  offered, while the values of a slot can be coalesced but never
+        //  go backwards, nor overtake the ordered messages offered before.
+        while ( threads.stream().anyMatch(Thread::isAlive) || !queue.isEmpty() ) {
+
+            int slot = queue.poll();
+
+            if ( slot == Integer.MIN_VALUE ) {
+                Thread.yield();
+            } else if ( slot < 0 ) {
+
+                MIDIOutputQueue.OrderedMessage omsg = queue.pollOrdered();
+                int channel = ( (ShortMessage) omsg.message ).getChannel();
+
+                assertEquals(lastOrdered[channel] + 2, omsg.timeStamp);
+
+                lastOrdered[channel] = omsg.timeStamp;
+                ordered++;
+
+            } else {
+
+                long value = queue.take(slot);
+
+                if ( value != 0L ) {
+
+                    long timeStamp = MIDIOutputQueue.timeStampOf(value);
+
+                    assertTrue(timeStamp > lastValue[slot]);
+
+                    //  Never before the ordered message offered just before it.
+                    assertTrue(timeStamp - 1 <= lastOrdered[MIDIOutputQueue.channelOf(slot)]);
+
+                    lastValue[slot] = timeStamp;
+
+                }
+
+            }
+
+        }
+
+        assertEquals(producers * messages / 2, ordered);
+
+        //  The last value offered to each slot is always sent.
+        for ( int p = 0; p < producers; p++ ) {
+            for ( int data1 = 1; data1 < 128; data1 += 2 ) {
+
+                long expected = messages - 1 - ( messages - 1 - data1 ) % 128;
+
+                assertEquals(expected, lastValue[MIDIOutputQueue.slot(p, data1)]);
+
+            }
+        }
+
+    }
+
+    /**
+     * Drain the queue, as the writer thread does.
+     *
+     * @return The drained messages, in the order they were polled.
+     */
+    private List<String> drain() {
+
+        List<String> drained = new ArrayList<>();
+        int slot;
+
+        while ( ( slot = queue.poll() ) != Integer.MIN_VALUE ) {
+            if ( slot < 0 ) {
+                drained.add("ordered " + ( (ShortMessage) queue.pollOrdered().message ).getData1());
+            } else {
+
+                long value = queue.take(slot);
+
+                if ( value != 0L ) {
+                    drained.add(MIDIOutputQueue.channelOf(slot) + "/" + MIDIOutputQueue.data1Of(slot) + "=" + MIDIOutputQueue.data2Of(value));
+                }
+
+            }
+        }
+
+        return drained;
+
+    }
+
+    private static ShortMessage message( int data1 ) throws InvalidMidiDataException {
+        return new ShortMessage(ShortMessage.NOTE_ON, 0, data1, 64);
+    }
+
+}
@@ -0,0 +1,374 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ * Copyright (C) 2017 by European Spallation Source ERIC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.europeanspallationsource.javafx.control.knobs.controller.midi.djtechtools;
+
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.testfx.api.FxToolkit;
+import se.europeanspallationsource.javafx.control.knobs.controller.Controllable.OperatingMode;
+import se.europeanspallationsource.javafx.control.knobs.controller.TestControllable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+
+/**
+ * Tests of {@link MidiFighterTwisterController}, driven by a
+ * {@link VirtualMidiFighterTwister}.
+ *
+ * @author Claudio Rosati, European Spallation Source ERIC
+ * @version 1.0.0 18 Oct 2026
+ */
+public class MidiFighterTwisterControllerTest {
+
+    private static final double EPSILON = 1E-9;
+
+    /**
+     * How long to wait for the controller, in milliseconds.
+     */
+    private static final long TIMEOUT = 2000;
+
+    @BeforeClass
+    public static void setUpClass() throws TimeoutException {
+        FxToolkit.registerPrimaryStage();
+    }
+
+    /**
+     * Wait until the given condition is {@code true}, failing if it doesn't
+     * happen within {@link #TIMEOUT}.
+     *
+     * @param message   The failure message.
+     * @param condition The condition to be waited for.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    private static void await( String message, BooleanSupplier condition ) throws InterruptedException {
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT);
+
+        while ( !condition.getAsBoolean() ) {
+
+            assertTrue(message, System.nanoTime() - deadline < 0L);
+
+            Thread.sleep(10);
+
+        }
+
+    }
+
+    private MidiFighterTwisterController controller;
+    private VirtualMidiFighterTwister device;
+
+    @Before
+    public void setUp() {
+        device = new VirtualMidiFighterTwister();
+        controller = new MidiFighterTwisterController(device);
+    }
+
+    @After
+    public void tearDown() {
+        controller.dispose();
+    }
+
+    @Test( timeout = 10000 )
+    public void testAddShowsState() throws InterruptedException {
+
+        TestControllable knob = new TestControllable(3);
+
+        knob.currentValueProperty().set(100);
+        controller.add(knob);
+
+        await("Ring not shown.", () -> device.getRingValue(3) == 127);
+        await("Color not shown.", () -> device.getColorValue(3) != 0);
+
+        knob.currentValueProperty().set(10);
+
+        await("Ring not updated.", () -> device.getRingValue(3) == 13);
+
+    }
+
+    @Test( timeout = 10000 )
+    public void testTurnDispatch() throws InterruptedException {
+
+        TestControllable knob3 = new TestControllable(3);
+        TestControllable knob4 = new TestControllable(4);
+
+        controller.add(knob3);
+        controller.add(knob4);
+
+        device.turn(3, 5);
+
+        await("Target not set.", () -> Math.abs(knob3.targetValueProperty().get() - 55) < EPSILON);
+
+        //  Events of the same JavaFX pulse are merged.
+        await("Target set not fired.", () -> knob3.getTargetValueSetCount() > 0);
+
+        device.turn(3, -2);
+
+        await("Target not set.", () -> Math.abs(knob3.targetValueProperty().get() - 53) < EPSILON);
+
+        //  Only the knob on the turned encoder is affected.
+        assertEquals(50, knob4.targetValueProperty().get(), EPSILON);
+        assertEquals(0, knob4.getTargetValueSetCount());
+
+    }
+
+    @Test( timeout = 10000 )
+    public void testFineResolution() throws InterruptedException {
+
+        TestControllable knob = new TestControllable(3);
+
+        controller.add(knob);
+        device.press(3);
+
+        await("Fine resolution not set.", () -> knob.fineResolutionProperty().get());
+
+        device.turn(3, 5);
+
+        await("Target not set.", () -> Math.abs(knob.targetValueProperty().get() - 50.5) < EPSILON);
+
+        device.release(3);
+
+        await("Fine resolution not reset.", () -> !knob.fineResolutionProperty().get());
+
+    }
+
+    @Test( timeout = 10000 )
+    public void testCoalescing() throws InterruptedException {
+
+        TestControllable knob = new TestControllable(3);
+
+        controller.add(knob);
+
+        await("Ring not shown.", () -> device.getRingValue(3) == 64);
+
+        //  A slow device: the pending ring values are replaced by newer ones.
+        controller.setBurstSize(1);
+        controller.setRateLimit(20);
+
+        long before = device.getControlChanges();
+
+        for ( int i = 0; i <= 100; i++ ) {
+            knob.currentValueProperty().set(i);
+        }
+
+        await("Last value not shown.", () -> device.getRingValue(3) == 127);
+
+        long sent = device.getControlChanges() - before;
+
+        assertTrue(String.valueOf(sent), sent < 10);
+
+    }
+
+    @Test( timeout = 10000 )
+    public void testShadowStateSuppression() throws InterruptedException {
+
+        TestControllable knob = new TestControllable(3);
+
+        controller.add(knob);
+
+        await("Ring not shown.", () -> device.getRingValue(3) == 64);
+        await("Color not shown.", () -> device.getColorValue(3) != 0);
+
+        long before = device.getControlChanges();
+
+        //  Same MIDI value as the one shown: nothing is sent.
+        knob.currentValueProperty().set(50.3);
+        knob.currentValueProperty().set(50.6);
+        Thread.sleep(200);
+
+        assertEquals(before, device.getControlChanges());
+
+        knob.currentValueProperty().set(100);
+
+        await("Ring not updated.", () -> device.getRingValue(3) == 127);
+        assertEquals(before + 1, device.getControlChanges());
+
+    }
+
+    @Test( timeout = 10000 )
+    public void testSetAndClick() throws InterruptedException {
+
+        TestControllable knob = new TestControllable(3);
+
+        knob.operatingModeProperty().set(OperatingMode.SET_AND_CLICK);
+        controller.add(knob);
+        device.turn(3, 5);
+
+        await("Target not set.", () -> Math.abs(knob.targetValueProperty().get() - 55) < EPSILON);
+
+        //  Turning only sets the target, the click validates it.
+        assertEquals(0, knob.getTargetValueSetCount());
+
+        device.click(3);
+
+        await("Target set not fired.", () -> knob.getTargetValueSetCount() == 1);
+        assertEquals(55, knob.targetValueProperty().get(), EPSILON);
+
+    }
+
+    @Test( timeout = 20000 )
+    public void testSetAndClickTimeOut() throws InterruptedException {
+
+        TestControllable knob = new TestControllable(3);
+
+        knob.operatingModeProperty().set(OperatingMode.SET_AND_CLICK);
+        knob.currentValueProperty().set(40);
+        controller.add(knob);
+        device.turn(3, 5);
+
+        await("Target not set.", () -> Math.abs(knob.targetValueProperty().get() - 55) < EPSILON);
+
+        long start = System.nanoTime();
+
+        //  Not clicked: the target reverts to the current value after 5 s.
+        Thread.sleep(4000);
+
+        assertEquals(55, knob.targetValueProperty().get(), EPSILON);
+
+        while ( Math.abs(knob.targetValueProperty().get() - 40) > EPSILON ) {
+
+            assertTrue("Time-out not expired.", System.nanoTime() - start < TimeUnit.SECONDS.toNanos(8));
+
+            Thread.sleep(10);
+
+        }
+
+        assertEquals(0, knob.getTargetValueSetCount());
+
+    }
+
+    @Test( timeout = 10000 )
+    public void testReset() throws InterruptedException, ExecutionException {
+
+        TestControllable knob = new TestControllable(3);
+
+        knob.currentValueProperty().set(100);
+        controller.add(knob);
+
+        await("Ring not shown.", () -> device.getRingValue(3) == 127);
+
+        double[] progress = { 0 };
+
+        assertTrue(controller.resetAsync(p -> progress[0] = p).get());
+        assertEquals(1.0, progress[0], EPSILON);
+
+        //  The device is cleared, then shows again the attached controllables.
+        await("Ring not shown after reset.", () -> device.getRingValue(3) == 127);
+        await("Color not shown after reset.", () -> device.getColorValue(3) != 0);
+
+    }
+
+    @Test( timeout = 20000 )
+    public void testFullSweepReset() throws InterruptedException, ExecutionException {
+
+        //  The last channel to be swept.
+        TestControllable knob = new TestControllable(63);
+
+        controller.add(knob);
+
+        await("Ring not shown.", () -> device.getRingValue(63) == 64);
+
+        //  About 0.8 s to sweep all channels.
+        controller.setFullSweepReset(true);
+        controller.setRateLimit(20000);
+
+        CompletableFuture<Boolean> reset = controller.resetAsync(null);
+
+        //  A current value sent while sweeping overtakes it: it must be sent
+        //  again once the sweep is done.
+        Thread.sleep(200);
+        knob.currentValueProperty().set(30);
+
+        await("Ring not updated.", () -> device.getRingValue(63) == 38);
+        assertTrue(reset.get());
+
+        //  Wait for the device to receive the whole sweep.
+        long received;
+
+        do {
+            received = device.getControlChanges();
+            Thread.sleep(200);
+        } while ( device.getControlChanges() != received );
+
+        assertEquals(38, device.getRingValue(63));
+        assertTrue(device.getColorValue(63) != 0);
+
+        //  Other channels are swept to 0.
+        assertEquals(0, device.getRingValue(4));
+        assertEquals(0, device.getColorValue(4));
+
+    }
+
+    @Test( timeout = 10000 )
+    public void testPaging() throws InterruptedException {
+
+        TestControllable knob3 = new TestControllable(3);
+        TestControllable knob67 = new TestControllable(67);
+        TestControllable knob83 = new TestControllable(83);
+
+        knob3.currentValueProperty().set(10);
+        knob67.currentValueProperty().set(90);
+        knob83.currentValueProperty().set(30);
+
+        controller.setPaging(true);
+        controller.add(knob3);
+        controller.add(knob67);
+        controller.add(knob83);
+
+        await("Page 0 not shown.", () -> device.getRingValue(3) == 13);
+        assertEquals(6, controller.getPageCount());
+
+        //  Page 4 is the first of the second group of 4 pages: bank 0.
+        controller.setPage(4);
+
+        await("Page 4 not shown.", () -> device.getRingValue(3) == 114);
+        assertEquals(0, device.getBank());
+
+        //  Bank 1 shows the second page of the live group.
+        device.pressBankButton(1);
+
+        await("Page 5 not shown.", () -> controller.getPage() == 5);
+        await("Page 5 not shown.", () -> device.getRingValue(19) == 38);
+
+        device.turn(19, 5);
+
+        await("Target not set.", () -> Math.abs(knob83.targetValueProperty().get() - 55) < EPSILON);
+        assertEquals(50, knob3.targetValueProperty().get(), EPSILON);
+        assertEquals(50, knob67.targetValueProperty().get(), EPSILON);
+
+        //  Wraps around after the last page.
+        controller.nextPage();
+
+        assertEquals(0, controller.getPage());
+        await("Page 0 not shown.", () -> device.getBank() == 0 && device.getRingValue(3) == 13);
+
+        controller.setPaging(false);
+
+        //  Channels beyond the first 64 are not shown, the stale ones are cleared.
+        await("Paging not switched off.", () -> device.getRingValue(3) == 13 && device.getRingValue(19) == 0);
+
+    }
+
+}